@@ -4,26 +4,37 @@ CREATE TABLE IF NOT EXISTS users (
     name VARCHAR(100) NOT NULL,
     email VARCHAR(100) UNIQUE NOT NULL,
     password VARCHAR(255) NOT NULL,
+    plan VARCHAR(20) NOT NULL DEFAULT 'STANDARD',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Columns added after the first release: CREATE TABLE IF NOT EXISTS leaves an existing table as it is, and
+-- ddl-auto validate refuses to start against a schema without them
+ALTER TABLE users ADD COLUMN IF NOT EXISTS plan VARCHAR(20) NOT NULL DEFAULT 'STANDARD';
+
 CREATE TABLE IF NOT EXISTS accounts (
     id BIGSERIAL PRIMARY KEY,
     user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
     currency VARCHAR(3) NOT NULL,
     balance DECIMAL(18,6) NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     UNIQUE(user_id, currency)
 );
 
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
 CREATE TABLE IF NOT EXISTS transactions (
     id BIGSERIAL PRIMARY KEY,
     user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
     type VARCHAR(20) NOT NULL,
     currency VARCHAR(3) NOT NULL,
     amount DECIMAL(18,6) NOT NULL,
+    to_currency VARCHAR(3),
+    quoted_rate NUMERIC(30,16),
+    to_amount DECIMAL(18,6),
     status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
     idempotency_key VARCHAR(100) UNIQUE,
     external_reference VARCHAR(100),
@@ -34,6 +45,31 @@ CREATE TABLE IF NOT EXISTS transactions (
     processed_at TIMESTAMP
 );
 
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS to_currency VARCHAR(3);
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS quoted_rate NUMERIC(30,16);
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS to_amount DECIMAL(18,6);
+-- Widens a quoted_rate created as DECIMAL(18,8); a no-op once it is NUMERIC(30,16)
+ALTER TABLE transactions ALTER COLUMN quoted_rate TYPE NUMERIC(30,16);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_exchange_pair
+    ON transactions (currency, to_currency, created_at) WHERE type = 'EXCHANGE';
+
+-- Keyset pagination of a user's history, newest first
+CREATE INDEX IF NOT EXISTS idx_transactions_user_history
+    ON transactions (user_id, created_at DESC, id DESC);
+
+CREATE TABLE IF NOT EXISTS transaction_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id BIGINT NOT NULL REFERENCES transactions(id) ON DELETE CASCADE,
+    message_key VARCHAR(100) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- The relay finds each key's oldest row and reads a key's rows in id order
+CREATE INDEX IF NOT EXISTS idx_transaction_outbox_key_id
+    ON transaction_outbox (message_key, id);
+
 -- Create sample users for testing (password is "password123" for both users)
 INSERT INTO users (name, email, password, created_at, updated_at) VALUES 
 ('John Doe', 'john.doe@example.com', '$2a$10$ZhGS.zcWt1g6eFHaOVVUOuQi6G6R5XJFfUzKzFzJZFJ5H9Q5h1XhS', NOW(), NOW()),
@@ -0,0 +1,35 @@
+package com.finance.wallet.config;
+
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.service.CircuitBreaker;
+import com.finance.wallet.service.CurrencyRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+
+@Configuration
+public class FxConfig {
+    
+    @Bean
+    public CircuitBreaker fxProviderCircuitBreaker(
+            @Value("${wallet.fx.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${wallet.fx.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        return new CircuitBreaker("fx-provider", failureThreshold, openDuration);
+    }
+    
+    @Bean
+    public CurrencyRegistry currencyRegistry(@Value("${wallet.fx.pivot-currency:USD}") Account.Currency pivot,
+                                             Environment environment) {
+        Map<Account.Currency, BigDecimal> fallbackRates = Binder.get(environment)
+                .bind("wallet.fx.fallback-rates", Bindable.mapOf(Account.Currency.class, BigDecimal.class))
+                .orElse(Map.of());
+        return new CurrencyRegistry(pivot, fallbackRates);
+    }
+}
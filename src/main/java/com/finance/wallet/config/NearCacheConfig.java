@@ -0,0 +1,48 @@
+package com.finance.wallet.config;
+
+import com.finance.wallet.dto.UserSummary;
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.service.NearCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+
+@Configuration
+public class NearCacheConfig {
+    
+    @Bean
+    public NearCache<Long, Map<Account.Currency, BigDecimal>> balanceNearCache(
+            @Value("${wallet.near-cache.balances.max-size:10000}") long maxSize,
+            @Value("${wallet.near-cache.balances.ttl:30s}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        return monitored(new NearCache<>("balances", maxSize, ttl, Long::valueOf), meterRegistry);
+    }
+    
+    @Bean
+    public NearCache<Long, UserSummary> userByIdNearCache(
+            @Value("${wallet.near-cache.users.max-size:10000}") long maxSize,
+            @Value("${wallet.near-cache.users.ttl:10m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        return monitored(new NearCache<>("users-by-id", maxSize, ttl, Long::valueOf), meterRegistry);
+    }
+    
+    @Bean
+    public NearCache<String, UserSummary> userByEmailNearCache(
+            @Value("${wallet.near-cache.users.max-size:10000}") long maxSize,
+            @Value("${wallet.near-cache.users.ttl:10m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        return monitored(new NearCache<String, UserSummary>("users-by-email", maxSize, ttl, key -> key), meterRegistry);
+    }
+    
+    // Exposes cache.gets{result=hit|miss}, cache.evictions and cache.size per near cache
+    private static <K, V> NearCache<K, V> monitored(NearCache<K, V> nearCache, MeterRegistry meterRegistry) {
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache.getCache(), nearCache.getName());
+        return nearCache;
+    }
+}
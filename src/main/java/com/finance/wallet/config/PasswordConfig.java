@@ -1,15 +1,31 @@
 package com.finance.wallet.config;
 
+import com.finance.wallet.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+
 @Configuration
 public class PasswordConfig {
     
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${wallet.password-hashing.max-concurrency:2}") int maxConcurrency,
+            @Value("${wallet.password-hashing.max-waiting:50}") int maxWaiting,
+            @Value("${wallet.password-hashing.timeout:5s}") Duration timeout,
+            MeterRegistry meterRegistry) {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(), maxConcurrency,
+                maxWaiting, timeout);
+        Gauge.builder("wallet.password-hashing.active", encoder, BoundedPasswordEncoder::activeHashes)
+                .register(meterRegistry);
+        Gauge.builder("wallet.password-hashing.waiting", encoder, BoundedPasswordEncoder::waitingCallers)
+                .register(meterRegistry);
+        return encoder;
     }
-}
\ No newline at end of file
+}
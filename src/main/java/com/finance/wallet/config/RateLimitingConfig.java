@@ -1,23 +1,55 @@
 package com.finance.wallet.config;
 
+import com.finance.wallet.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 @Configuration
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class RateLimitingConfig {
     
-    @Value("${wallet.rate-limiting.capacity:20}")
-    private int capacity;
+    // Requests per refill period for a standard plan; the old single capacity is the default for writes
+    @Value("${wallet.rate-limiting.limits.deposit:${wallet.rate-limiting.capacity:20}}")
+    private long depositLimit;
+    
+    @Value("${wallet.rate-limiting.limits.withdraw:${wallet.rate-limiting.capacity:20}}")
+    private long withdrawLimit;
+    
+    @Value("${wallet.rate-limiting.limits.exchange:${wallet.rate-limiting.capacity:20}}")
+    private long exchangeLimit;
+    
+    // Each exchange needs a quote, and an expired one is requested again
+    @Value("${wallet.rate-limiting.limits.quote:40}")
+    private long quoteLimit;
+    
+    @Value("${wallet.rate-limiting.limits.batch:5}")
+    private long batchLimit;
+    
+    @Value("${wallet.rate-limiting.limits.read:120}")
+    private long readLimit;
+    
+    @Value("${wallet.rate-limiting.premium-multiplier:5}")
+    private long premiumMultiplier;
     
     @Value("${wallet.rate-limiting.refill-rate:20}")
     private int refillRate;
@@ -25,16 +57,86 @@ public class RateLimitingConfig {
     @Value("${wallet.rate-limiting.refill-period:1m}")
     private Duration refillPeriod;
     
-    private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    @Value("${wallet.rate-limiting.prefetch-tokens:5}")
+    private long prefetchTokens;
+    
+    @Value("${wallet.rate-limiting.prefetch-timeout:200ms}")
+    private Duration prefetchTimeout;
+    
+    // Present with wallet.rate-limiting.backend=redis
+    private final ObjectProvider<ProxyManager<byte[]>> proxyManager;
+    
+    @Value("${wallet.rate-limiting.max-buckets:50000}")
+    private long maxBuckets;
+    
+    private final MeterRegistry meterRegistry;
     
-    public Bucket resolveBucket(String key) {
-        return buckets.computeIfAbsent(key, this::newBucket);
+    // Also kept in Redis mode: each proxy holds the tokens its node has taken but not yet synchronized
+    private Cache<String, Bucket> buckets;
+    
+    /**
+     * Client keys come from the client (any address or X-Forwarded-For value), so the store is bounded. A bucket left
+     * idle for a whole refill period has refilled completely and is dropped at no cost to the limit; past
+     * max-buckets the least recently used go first, which only hands those clients a fresh bucket.
+     */
+    @PostConstruct
+    void initBucketStore() {
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(refillPeriod)
+                .recordStats()
+                .build();
+        // cache.evictions{cause=size|expired}, cache.size and cache.gets for the store
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rate-limit-buckets");
+    }
+    
+    /**
+     * The bucket of one client, a user id or an address, for one endpoint class. The plan is part of the key, so a
+     * user whose plan changes starts on a bucket of the new size.
+     */
+    public Bucket resolveBucket(EndpointClass endpointClass, User.Plan plan, String clientKey) {
+        String key = "rate_limit:" + endpointClass.name().toLowerCase() + ":" + plan.name().toLowerCase() + ":"
+                + clientKey;
+        return buckets.get(key, bucketKey -> newBucket(bucketKey, limitFor(endpointClass, plan)));
+    }
+    
+    public long limitFor(EndpointClass endpointClass, User.Plan plan) {
+        long limit = switch (endpointClass) {
+            case DEPOSIT -> depositLimit;
+            case WITHDRAW -> withdrawLimit;
+            case EXCHANGE -> exchangeLimit;
+            case QUOTE -> quoteLimit;
+            case BATCH -> batchLimit;
+            case READ -> readLimit;
+        };
+        return plan == User.Plan.PREMIUM ? limit * premiumMultiplier : limit;
+    }
+    
+    public Duration getRefillPeriod() {
+        return refillPeriod;
     }
     
-    private Bucket newBucket(String key) {
+    private Bucket newBucket(String key, long capacity) {
         Bandwidth bandwidth = Bandwidth.simple(capacity, refillPeriod);
-        return Bucket.builder()
+        ProxyManager<byte[]> redis = proxyManager.getIfAvailable();
+        if (redis == null) {
+            return Bucket.builder()
+                    .addLimit(bandwidth)
+                    .build();
+        }
+        
+        BucketConfiguration configuration = BucketConfiguration.builder()
                 .addLimit(bandwidth)
                 .build();
+        // A node consumes up to prefetch-tokens locally before writing to Redis, so the cluster may admit that many
+        // extra requests per node and client, in exchange for one round trip per batch instead of per request
+        return redis.builder()
+                .withOptimization(Optimizations.delaying(new DelayParameters(prefetchTokens, prefetchTimeout)))
+                .build(key.getBytes(StandardCharsets.UTF_8), () -> configuration);
+    }
+    
+    // Each class has its own budget, so a burst of one kind of request can't use up another
+    public enum EndpointClass {
+        DEPOSIT, WITHDRAW, EXCHANGE, QUOTE, BATCH, READ
     }
 } 
\ No newline at end of file
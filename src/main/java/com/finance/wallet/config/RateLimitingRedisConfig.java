@@ -0,0 +1,62 @@
+package com.finance.wallet.config;
+
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.resource.ClientResources;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.time.Duration;
+
+/**
+ * Keeps rate limit buckets in Redis so that every node draws from the same bucket per client. Bucket4j updates them
+ * with compare-and-swap over its own binary connection, separate from the one Spring Data Redis uses.
+ */
+@Configuration
+@ConditionalOnProperty(name = "wallet.rate-limiting.backend", havingValue = "redis")
+public class RateLimitingRedisConfig {
+    
+    // How long an idle bucket outlives the time it needs to refill completely
+    private static final Duration EXPIRATION_MARGIN = Duration.ofSeconds(10);
+    
+    @Bean(destroyMethod = "shutdown")
+    public RedisClient rateLimitingRedisClient(RedisProperties redisProperties, ClientResources clientResources) {
+        RedisURI.Builder uri = RedisURI.builder()
+                .withHost(redisProperties.getHost())
+                .withPort(redisProperties.getPort())
+                .withDatabase(redisProperties.getDatabase())
+                .withSsl(redisProperties.getSsl().isEnabled());
+        if (redisProperties.getPassword() != null) {
+            uri.withPassword(redisProperties.getPassword().toCharArray());
+        }
+        if (redisProperties.getTimeout() != null) {
+            uri.withTimeout(redisProperties.getTimeout());
+        }
+        return RedisClient.create(clientResources, uri.build());
+    }
+    
+    // Connected on first use, so the application starts, failing open, while Redis is unreachable
+    @Bean(destroyMethod = "close")
+    @Lazy
+    public StatefulRedisConnection<byte[], byte[]> rateLimitingRedisConnection(RedisClient rateLimitingRedisClient) {
+        return rateLimitingRedisClient.connect(ByteArrayCodec.INSTANCE);
+    }
+    
+    @Bean
+    @Lazy
+    public ProxyManager<byte[]> rateLimitingProxyManager(
+            StatefulRedisConnection<byte[], byte[]> rateLimitingRedisConnection) {
+        return LettuceBasedProxyManager.builderFor(rateLimitingRedisConnection)
+                .withExpirationStrategy(
+                        ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(EXPIRATION_MARGIN))
+                .build();
+    }
+}
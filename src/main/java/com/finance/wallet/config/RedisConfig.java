@@ -2,10 +2,15 @@ package com.finance.wallet.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.finance.wallet.service.NearCacheInvalidator;
+import com.finance.wallet.service.TransactionStatusBroadcaster;
+import com.finance.wallet.service.TransactionStatusPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -28,6 +33,18 @@ public class RedisConfig {
         return template;
     }
     
+    // One subscriber connection shared by every pub/sub channel
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+            NearCacheInvalidator nearCacheInvalidator, TransactionStatusBroadcaster transactionStatusBroadcaster) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(nearCacheInvalidator, new ChannelTopic(NearCacheInvalidator.CHANNEL));
+        container.addMessageListener(transactionStatusBroadcaster,
+                new ChannelTopic(TransactionStatusPublisher.CHANNEL));
+        return container;
+    }
+    
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
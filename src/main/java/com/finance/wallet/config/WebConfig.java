@@ -14,8 +14,8 @@ public class WebConfig implements WebMvcConfigurer {
     
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // Reads are limited too, on a budget of their own
         registry.addInterceptor(rateLimitingInterceptor)
-                .addPathPatterns("/transactions/**")
-                .excludePathPatterns("/transactions/balance/**", "/transactions/status/**", "/transactions/history/**");
+                .addPathPatterns("/transactions/**", "/fx/**");
     }
 } 
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.finance.wallet.controller;
+
+import com.finance.wallet.dto.FxQuoteRequest;
+import com.finance.wallet.dto.FxQuoteResponse;
+import com.finance.wallet.service.FxQuoteService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/fx")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "FX API", description = "APIs for exchange rate quotes")
+public class FxController {
+    
+    private final FxQuoteService fxQuoteService;
+    
+    @PostMapping("/quotes")
+    @Operation(summary = "Get an exchange rate quote that can be used for one exchange until it expires")
+    public ResponseEntity<FxQuoteResponse> createQuote(@Valid @RequestBody FxQuoteRequest request) {
+        
+        log.info("Quote request for user: {} {} to {}", 
+                request.getUserId(), request.getFromCurrency(), request.getToCurrency());
+        
+        FxQuoteResponse response = fxQuoteService.issueQuote(request.getUserId(), 
+                request.getFromCurrency(), request.getToCurrency());
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+}
@@ -1,19 +1,30 @@
 package com.finance.wallet.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.finance.wallet.dto.BalanceResponse;
+import com.finance.wallet.dto.BatchTransactionRequest;
+import com.finance.wallet.dto.BatchTransactionResponse;
 import com.finance.wallet.dto.DepositRequest;
 import com.finance.wallet.dto.ExchangeRequest;
+import com.finance.wallet.dto.TransactionHistoryFilter;
+import com.finance.wallet.dto.TransactionHistoryPage;
 import com.finance.wallet.dto.TransactionResponse;
 import com.finance.wallet.dto.TransactionStatusResponse;
 import com.finance.wallet.dto.WithdrawalRequest;
-import com.finance.wallet.service.AccountService;
+import com.finance.wallet.entity.Transaction;
+import com.finance.wallet.service.BalanceCacheService;
 import com.finance.wallet.service.TransactionService;
+import com.finance.wallet.service.TransactionStatusBroadcaster;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -21,10 +32,15 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
-import java.util.Optional;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/transactions")
@@ -34,7 +50,9 @@ import java.util.Optional;
 public class TransactionController {
     
     private final TransactionService transactionService;
-    private final AccountService accountService;
+    private final BalanceCacheService balanceCacheService;
+    private final TransactionStatusBroadcaster transactionStatusBroadcaster;
+    private final ObjectMapper objectMapper;
     
     @PostMapping("/deposit")
     @Operation(summary = "Create a deposit transaction")
@@ -76,13 +94,22 @@ public class TransactionController {
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
     }
     
+    @PostMapping("/batch")
+    @Operation(summary = "Create up to wallet.batch.max-items deposit, withdrawal and exchange transactions at once")
+    public ResponseEntity<BatchTransactionResponse> batch(@Valid @RequestBody BatchTransactionRequest request) {
+        log.info("Batch request with {} items", request.getItems().size());
+        
+        BatchTransactionResponse response = transactionService.createTransactionBatch(request.getItems());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+    
     @GetMapping("/balance/{userId}")
     @Operation(summary = "Get user balances")
     public ResponseEntity<BalanceResponse> getBalance(@PathVariable Long userId) {
         
         log.info("Balance request for user: {}", userId);
         
-        var balances = accountService.getBalancesByUserId(userId);
+        var balances = balanceCacheService.getBalances(userId);
         BalanceResponse response = BalanceResponse.builder()
                 .userId(userId)
                 .balances(balances)
@@ -97,31 +124,66 @@ public class TransactionController {
         
         log.info("Status request for user: {}", userId);
         
-        Optional<TransactionResponse> lastTransaction = transactionService.getLastTransactionByUserId(userId);
-        
-        if (lastTransaction.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
+        return transactionService.getTransactionStatus(userId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping(value = "/status/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream final statuses of the user's transactions as Server-Sent Events")
+    public SseEmitter streamStatus(
+            @PathVariable Long userId,
+            @RequestParam(name = "transactionId", required = false) Set<Long> transactionIds) {
         
-        TransactionStatusResponse response = TransactionStatusResponse.builder()
-                .userId(userId)
-                .lastTransactionStatus(lastTransaction.get().getStatus())
-                .lastTransactionType(lastTransaction.get().getType().name())
-                .errorMessage(lastTransaction.get().getErrorMessage())
-                .lastUpdated(lastTransaction.get().getProcessedAt() != null ? 
-                        lastTransaction.get().getProcessedAt() : lastTransaction.get().getCreatedAt())
-                .build();
+        log.info("Status stream subscription for user: {} transactions: {}", userId, transactionIds);
         
-        return ResponseEntity.ok(response);
+        return transactionStatusBroadcaster.subscribe(userId, transactionIds != null ? transactionIds : Set.of());
     }
     
     @GetMapping("/history/{userId}")
-    @Operation(summary = "Get transaction history for user")
-    public ResponseEntity<List<TransactionResponse>> getTransactionHistory(@PathVariable Long userId) {
+    @Operation(summary = "Get a page of transaction history for user, newest first")
+    public ResponseEntity<TransactionHistoryPage> getTransactionHistory(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Transaction.TransactionType type,
+            @RequestParam(required = false) Transaction.TransactionStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         
         log.info("Transaction history request for user: {}", userId);
         
-        List<TransactionResponse> transactions = transactionService.getTransactionsByUserId(userId);
-        return ResponseEntity.ok(transactions);
+        TransactionHistoryFilter filter = new TransactionHistoryFilter(type, status, from, to);
+        return ResponseEntity.ok(transactionService.getTransactionHistory(userId, filter, cursor, limit));
+    }
+    
+    @GetMapping(value = "/history/{userId}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export the full transaction history for user as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> exportTransactionHistory(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Transaction.TransactionType type,
+            @RequestParam(required = false) Transaction.TransactionStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        
+        log.info("Transaction history export for user: {}", userId);
+        
+        TransactionHistoryFilter filter = new TransactionHistoryFilter(type, status, from, to);
+        // Rows are written as the cursor advances, on an async thread after this method returns
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer()
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(out)) {
+                transactionService.exportTransactionHistory(userId, filter, transaction -> {
+                    try {
+                        writer.write(transaction);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
-} 
\ No newline at end of file
+}
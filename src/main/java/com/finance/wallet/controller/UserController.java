@@ -41,7 +41,7 @@ public class UserController {
         log.info("Getting user by ID: {}", id);
         
         return userService.findById(id)
-                .map(user -> ResponseEntity.ok(UserResponse.fromEntity(user)))
+                .map(user -> ResponseEntity.ok(UserResponse.fromSummary(user)))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -52,7 +52,7 @@ public class UserController {
         log.info("Getting user by email: {}", email);
         
         return userService.findByEmail(email)
-                .map(user -> ResponseEntity.ok(UserResponse.fromEntity(user)))
+                .map(user -> ResponseEntity.ok(UserResponse.fromSummary(user)))
                 .orElse(ResponseEntity.notFound().build());
     }
 } 
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.finance.wallet.dto;
+
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.Transaction;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchTransactionItem {
+    
+    @NotNull(message = "Type is required")
+    private Transaction.TransactionType type;
+    
+    @NotNull(message = "User ID is required")
+    private Long userId;
+    
+    // The source currency of an exchange
+    @NotNull(message = "Currency is required")
+    private Account.Currency currency;
+    
+    // Exchange only
+    private Account.Currency toCurrency;
+    
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.000001", message = "Amount must be greater than 0")
+    private BigDecimal amount;
+    
+    // Exchange only
+    private String quoteId;
+    
+    private String description;
+    
+    @Size(max = 100, message = "Idempotency key must be at most 100 characters")
+    private String idempotencyKey;
+}
@@ -0,0 +1,19 @@
+package com.finance.wallet.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransactionRequest {
+    
+    @NotEmpty(message = "At least one item is required")
+    @Valid
+    private List<BatchTransactionItem> items;
+}
@@ -0,0 +1,40 @@
+package com.finance.wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchTransactionResponse {
+    
+    // In the order of the request items
+    private List<ItemResult> results;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ItemResult {
+        
+        private int index;
+        private String idempotencyKey;
+        private Outcome outcome;
+        // Absent when rejected
+        private TransactionResponse transaction;
+        private String error;
+    }
+    
+    public enum Outcome {
+        // A new transaction was created
+        CREATED,
+        // The idempotency key was already used, the transaction created then is returned
+        EXISTING,
+        REJECTED
+    }
+}
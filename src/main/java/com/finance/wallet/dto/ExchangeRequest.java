@@ -2,6 +2,7 @@ package com.finance.wallet.dto;
 
 import com.finance.wallet.entity.Account;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -27,5 +28,8 @@ public class ExchangeRequest {
     @DecimalMin(value = "0.000001", message = "Amount must be greater than 0")
     private BigDecimal amount;
     
+    @NotBlank(message = "Quote ID is required")
+    private String quoteId;
+    
     private String description;
 } 
\ No newline at end of file
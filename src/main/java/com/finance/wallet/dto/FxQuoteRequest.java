@@ -0,0 +1,22 @@
+package com.finance.wallet.dto;
+
+import com.finance.wallet.entity.Account;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FxQuoteRequest {
+    
+    @NotNull(message = "User ID is required")
+    private Long userId;
+    
+    @NotNull(message = "From currency is required")
+    private Account.Currency fromCurrency;
+    
+    @NotNull(message = "To currency is required")
+    private Account.Currency toCurrency;
+}
@@ -0,0 +1,23 @@
+package com.finance.wallet.dto;
+
+import com.finance.wallet.entity.Account;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FxQuoteResponse {
+    
+    private String quoteId;
+    private Account.Currency fromCurrency;
+    private Account.Currency toCurrency;
+    private BigDecimal rate;
+    private Instant expiresAt;
+}
@@ -0,0 +1,23 @@
+package com.finance.wallet.dto;
+
+import com.finance.wallet.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionHistoryFilter {
+    
+    private Transaction.TransactionType type;
+    private Transaction.TransactionStatus status;
+    // Inclusive
+    private LocalDateTime from;
+    // Exclusive
+    private LocalDateTime to;
+}
@@ -0,0 +1,19 @@
+package com.finance.wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionHistoryPage {
+    
+    private List<TransactionResponse> transactions;
+    // Null on the last page
+    private String nextCursor;
+}
@@ -21,6 +21,9 @@ public class TransactionResponse {
     private Transaction.TransactionType type;
     private Account.Currency currency;
     private BigDecimal amount;
+    private Account.Currency toCurrency;
+    private BigDecimal quotedRate;
+    private BigDecimal toAmount;
     private Transaction.TransactionStatus status;
     private String description;
     private String errorMessage;
@@ -34,6 +37,9 @@ public class TransactionResponse {
                 .type(transaction.getType())
                 .currency(transaction.getCurrency())
                 .amount(transaction.getAmount())
+                .toCurrency(transaction.getToCurrency())
+                .quotedRate(transaction.getQuotedRate())
+                .toAmount(transaction.getToAmount())
                 .status(transaction.getStatus())
                 .description(transaction.getDescription())
                 .errorMessage(transaction.getErrorMessage())
@@ -0,0 +1,41 @@
+package com.finance.wallet.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.finance.wallet.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionStatusEvent {
+    
+    private Long transactionId;
+    private Long userId;
+    private Transaction.TransactionType type;
+    private Transaction.TransactionStatus status;
+    private String errorMessage;
+    private LocalDateTime processedAt;
+    
+    public static TransactionStatusEvent fromEntity(Transaction transaction) {
+        return TransactionStatusEvent.builder()
+                .transactionId(transaction.getId())
+                .userId(transaction.getUser().getId())
+                .type(transaction.getType())
+                .status(transaction.getStatus())
+                .errorMessage(transaction.getErrorMessage())
+                .processedAt(transaction.getProcessedAt())
+                .build();
+    }
+    
+    @JsonIgnore
+    public boolean isFinal() {
+        return status == Transaction.TransactionStatus.COMPLETED || status == Transaction.TransactionStatus.FAILED
+                || status == Transaction.TransactionStatus.CANCELLED;
+    }
+}
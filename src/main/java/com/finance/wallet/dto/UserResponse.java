@@ -27,4 +27,13 @@ public class UserResponse {
                 .createdAt(user.getCreatedAt())
                 .build();
     }
+    
+    public static UserResponse fromSummary(UserSummary user) {
+        return UserResponse.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .createdAt(user.getCreatedAt())
+                .build();
+    }
 } 
\ No newline at end of file
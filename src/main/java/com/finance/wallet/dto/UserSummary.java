@@ -0,0 +1,29 @@
+package com.finance.wallet.dto;
+
+import com.finance.wallet.entity.User;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+// Immutable view of a user for the near caches: no password hash and no lazy collections tied to a session
+@Value
+@Builder
+public class UserSummary {
+    
+    Long id;
+    String name;
+    String email;
+    User.Plan plan;
+    LocalDateTime createdAt;
+    
+    public static UserSummary fromEntity(User user) {
+        return UserSummary.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .plan(user.getPlan())
+                .createdAt(user.getCreatedAt())
+                .build();
+    }
+}
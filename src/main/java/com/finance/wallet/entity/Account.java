@@ -12,6 +12,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -46,6 +47,11 @@ public class Account {
     @Column(nullable = false, precision = 18, scale = 6)
     private BigDecimal balance;
     
+    // Bumped by every balance change; the sum over a user's accounts versions the cached balance map
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     @CreationTimestamp
     @Column(name = "created_at")
     private LocalDateTime createdAt;
@@ -54,7 +60,8 @@ public class Account {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Ordinals index the FX rate matrix and are written by the binary transaction codec: only append new currencies
     public enum Currency {
-        USD, TRY
+        USD, TRY, EUR, GBP, CHF, JPY, CAD, AUD
     }
 } 
\ No newline at end of file
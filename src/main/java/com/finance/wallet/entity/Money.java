@@ -0,0 +1,172 @@
+package com.finance.wallet.entity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable amount of a currency held as a {@code long} of micro-units, the scale of the {@code DECIMAL(18,6)}
+ * balance and amount columns. Arithmetic is exact and throws {@link ArithmeticException} instead of overflowing or
+ * leaving the column's range, and rounding only ever happens where it is asked for, in {@link #convert}.
+ */
+public final class Money implements Comparable<Money> {
+    
+    public static final int SCALE = 6;
+    
+    private static final long MICROS_PER_UNIT = 1_000_000L;
+    // DECIMAL(18,6): at most 18 digits in total
+    private static final long MAX_MICROS = 999_999_999_999_999_999L;
+    
+    private final long micros;
+    private final Account.Currency currency;
+    
+    private Money(long micros, Account.Currency currency) {
+        this.micros = micros;
+        this.currency = currency;
+    }
+    
+    public static Money ofMicros(long micros, Account.Currency currency) {
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency is required");
+        }
+        if (micros > MAX_MICROS || micros < -MAX_MICROS) {
+            throw new ArithmeticException("Amount exceeds DECIMAL(18,6): " + micros + " micro-units of " + currency);
+        }
+        return new Money(micros, currency);
+    }
+    
+    public static Money zero(Account.Currency currency) {
+        return ofMicros(0, currency);
+    }
+    
+    // Exact: an amount with more than six significant decimals is rejected rather than rounded
+    public static Money of(BigDecimal amount, Account.Currency currency) {
+        try {
+            return ofMicros(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact(),
+                    currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount " + amount.toPlainString() + " " + currency
+                    + " is not representable with " + SCALE + " decimals", e);
+        }
+    }
+    
+    /**
+     * Parses a plain decimal such as {@code "-12.5"} straight into micro-units without going through
+     * {@link BigDecimal}. Anything else (exponents, more than six decimals) is handed to {@link #of}.
+     */
+    public static Money parse(CharSequence text, Account.Currency currency) {
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            i++;
+        }
+        
+        long units = 0;
+        int integerDigits = 0;
+        for (; i < length && Character.isDigit(text.charAt(i)); i++, integerDigits++) {
+            if (integerDigits == 12) {
+                return of(new BigDecimal(text.toString()), currency);
+            }
+            units = units * 10 + (text.charAt(i) - '0');
+        }
+        
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (i < length && text.charAt(i) == '.') {
+            for (i++; i < length && Character.isDigit(text.charAt(i)); i++, fractionDigits++) {
+                if (fractionDigits == SCALE) {
+                    return of(new BigDecimal(text.toString()), currency);
+                }
+                fraction = fraction * 10 + (text.charAt(i) - '0');
+            }
+        }
+        
+        if (i != length || integerDigits + fractionDigits == 0) {
+            // Not a plain decimal: let BigDecimal accept it or fail with its own NumberFormatException
+            return of(new BigDecimal(text.toString()), currency);
+        }
+        
+        for (int pad = fractionDigits; pad < SCALE; pad++) {
+            fraction *= 10;
+        }
+        long micros = units * MICROS_PER_UNIT + fraction;
+        return ofMicros(negative ? -micros : micros, currency);
+    }
+    
+    public long getMicros() {
+        return micros;
+    }
+    
+    public Account.Currency getCurrency() {
+        return currency;
+    }
+    
+    public int signum() {
+        return Long.signum(micros);
+    }
+    
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return ofMicros(Math.addExact(micros, other.micros), currency);
+    }
+    
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return ofMicros(Math.subtractExact(micros, other.micros), currency);
+    }
+    
+    public Money negate() {
+        return new Money(-micros, currency);
+    }
+    
+    public Money abs() {
+        return micros < 0 ? negate() : this;
+    }
+    
+    /**
+     * Converts to the target currency at the given rate. The product is computed exactly and rounded once to
+     * micro-units with the caller's rounding mode.
+     */
+    public Money convert(Account.Currency target, BigDecimal rate, RoundingMode rounding) {
+        BigDecimal converted = BigDecimal.valueOf(micros, SCALE).multiply(rate).setScale(SCALE, rounding);
+        try {
+            return ofMicros(converted.unscaledValue().longValueExact(), target);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Converted amount exceeds DECIMAL(18,6): " + converted.toPlainString()
+                    + " " + target);
+        }
+    }
+    
+    // The value bound to a DECIMAL(18,6) column
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(micros, SCALE);
+    }
+    
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(micros, other.micros);
+    }
+    
+    private void requireSameCurrency(Money other) {
+        if (currency != other.currency) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && micros == other.micros && currency == other.currency;
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(micros) + currency.hashCode();
+    }
+    
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+}
@@ -48,6 +48,16 @@ public class Transaction {
     @Column(nullable = false, precision = 18, scale = 6)
     private BigDecimal amount;
     
+    @Enumerated(EnumType.STRING)
+    @Column(name = "to_currency", length = 3)
+    private Account.Currency toCurrency;
+    
+    @Column(name = "quoted_rate", precision = 30, scale = 16)
+    private BigDecimal quotedRate;
+    
+    @Column(name = "to_amount", precision = 18, scale = 6)
+    private BigDecimal toAmount;
+    
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private TransactionStatus status;
@@ -3,6 +3,8 @@ package com.finance.wallet.entity;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -40,6 +42,12 @@ public class User {
     @Column(nullable = false)
     private String password;
     
+    // Carried in the JWT so per-plan rate limits need no lookup
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private Plan plan = Plan.STANDARD;
+    
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Account> accounts;
     
@@ -53,4 +61,8 @@ public class User {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+    
+    public enum Plan {
+        STANDARD, PREMIUM
+    }
 } 
\ No newline at end of file
@@ -1,14 +1,21 @@
 package com.finance.wallet.interceptor;
 
 import com.finance.wallet.config.RateLimitingConfig;
+import com.finance.wallet.entity.User;
+import com.finance.wallet.security.UserPrincipal;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.ConsumptionProbe;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
@@ -26,41 +33,83 @@ public class RateLimitingInterceptor implements HandlerInterceptor {
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) 
             throws Exception {
         
-        if (!rateLimitingEnabled) {
+        // An async dispatch continues a request that was already counted
+        if (!rateLimitingEnabled || request.getDispatcherType() == DispatcherType.ASYNC) {
             return true;
         }
         
-        // Only apply rate limiting to write operations (POST, PUT, DELETE)
-        String method = request.getMethod();
-        if (!"POST".equalsIgnoreCase(method) && 
-            !"PUT".equalsIgnoreCase(method) && 
-            !"DELETE".equalsIgnoreCase(method)) {
+        // User id and plan come from the JWT principal, so limiting by user needs no lookup; callers without one
+        // are limited by address
+        RateLimitingConfig.EndpointClass endpointClass = classify(request);
+        UserPrincipal principal = currentPrincipal();
+        String clientKey = principal != null ? "user:" + principal.getId() : "ip:" + getClientIP(request);
+        User.Plan plan = principal != null ? principal.getPlan() : User.Plan.STANDARD;
+        
+        ConsumptionProbe probe;
+        try {
+            Bucket bucket = rateLimitingConfig.resolveBucket(endpointClass, plan, clientKey);
+            probe = bucket.tryConsumeAndReturnRemaining(1);
+        } catch (Exception e) {
+            // Fail open: an unreachable Redis must not take the API down with it
+            log.warn("Rate limit check failed for {}, allowing request: {}", clientKey, e.getMessage());
             return true;
         }
         
-        String clientIp = getClientIP(request);
-        String bucketKey = "rate_limit:" + clientIp;
-        
-        Bucket bucket = rateLimitingConfig.resolveBucket(bucketKey);
-        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        // RateLimit header fields of the IETF draft, with the reset and retry times rounded up to whole seconds
+        long limit = rateLimitingConfig.limitFor(endpointClass, plan);
+        response.setHeader("RateLimit-Limit", String.valueOf(limit));
+        response.setHeader("RateLimit-Remaining", String.valueOf(probe.getRemainingTokens()));
+        response.setHeader("RateLimit-Reset", String.valueOf(toSeconds(probe.getNanosToWaitForReset())));
+        response.setHeader("RateLimit-Policy", limit + ";w=" + rateLimitingConfig.getRefillPeriod().toSeconds());
         
+        // Deprecated X-Rate-Limit-* headers, still sent with their old meaning until clients have moved to the above
         if (probe.isConsumed()) {
-            // Add rate limit headers
-            response.addHeader("X-Rate-Limit-Remaining", String.valueOf(probe.getRemainingTokens()));
+            response.setHeader("X-Rate-Limit-Remaining", String.valueOf(probe.getRemainingTokens()));
             return true;
         } else {
             // Rate limit exceeded
-            log.warn("Rate limit exceeded for IP: {} on endpoint: {}", clientIp, request.getRequestURI());
+            log.warn("Rate limit exceeded for {} on endpoint: {}", clientKey, request.getRequestURI());
             
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-            response.addHeader("X-Rate-Limit-Retry-After-Seconds", 
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(toSeconds(probe.getNanosToWaitForRefill())));
+            response.setHeader("X-Rate-Limit-Retry-After-Seconds",
                     String.valueOf(probe.getNanosToWaitForRefill() / 1_000_000_000));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
             response.getWriter().write("{\"error\":\"Too many requests. Please try again later.\"}");
             
             return false;
         }
     }
     
+    private static RateLimitingConfig.EndpointClass classify(HttpServletRequest request) {
+        if ("GET".equalsIgnoreCase(request.getMethod())) {
+            return RateLimitingConfig.EndpointClass.READ;
+        }
+        
+        String uri = request.getRequestURI();
+        return switch (uri.substring(uri.lastIndexOf('/') + 1)) {
+            case "deposit" -> RateLimitingConfig.EndpointClass.DEPOSIT;
+            case "withdraw" -> RateLimitingConfig.EndpointClass.WITHDRAW;
+            case "exchange" -> RateLimitingConfig.EndpointClass.EXCHANGE;
+            case "quotes" -> RateLimitingConfig.EndpointClass.QUOTE;
+            case "batch" -> RateLimitingConfig.EndpointClass.BATCH;
+            // Any other request shares the general budget of reads
+            default -> RateLimitingConfig.EndpointClass.READ;
+        };
+    }
+    
+    private static UserPrincipal currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal;
+        }
+        return null;
+    }
+    
+    private static long toSeconds(long nanos) {
+        return (nanos + 999_999_999) / 1_000_000_000;
+    }
+    
     private String getClientIP(HttpServletRequest request) {
         String xfHeader = request.getHeader("X-Forwarded-For");
         if (xfHeader == null) {
@@ -8,7 +8,9 @@ import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,4 +29,67 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     @Query("SELECT a FROM Account a WHERE a.user.id = :userId AND a.currency = :currency")
     Optional<Account> findByUserIdAndCurrencyWithLock(@Param("userId") Long userId, 
                                                      @Param("currency") Account.Currency currency);
-} 
\ No newline at end of file
+    
+    @Query("SELECT a.balance FROM Account a WHERE a.user.id = :userId AND a.currency = :currency")
+    Optional<BigDecimal> findBalanceByUserIdAndCurrency(@Param("userId") Long userId,
+                                                        @Param("currency") Account.Currency currency);
+    
+    @Query("SELECT a.currency AS currency, a.balance AS balance, a.version AS version " +
+           "FROM Account a WHERE a.user.id = :userId")
+    List<BalanceSnapshot> findBalanceSnapshotByUserId(@Param("userId") Long userId);
+    
+    // Conditional in-place credit/debit; empty when the account is missing or the balance would go negative
+    @Transactional
+    @Query(value = "UPDATE accounts SET balance = balance + :delta, version = version + 1, " +
+                   "updated_at = CURRENT_TIMESTAMP " +
+                   "WHERE user_id = :userId AND currency = :currency AND balance + :delta >= 0 " +
+                   "RETURNING balance", nativeQuery = true)
+    Optional<BigDecimal> applyBalanceDelta(@Param("userId") Long userId,
+                                           @Param("currency") String currency,
+                                           @Param("delta") BigDecimal delta);
+    
+    // Both legs in one statement: the two rows are locked in currency order, then the source is debited
+    // (only if it covers the amount) and the destination is upserted. fromBalance is null when nothing moved.
+    @Transactional
+    @Query(value = """
+            WITH locked AS MATERIALIZED (
+                SELECT id, currency FROM accounts
+                WHERE user_id = :userId AND currency IN (:fromCurrency, :toCurrency)
+                ORDER BY currency
+                FOR UPDATE
+            ), debit AS (
+                UPDATE accounts a SET balance = a.balance - :fromAmount, version = a.version + 1,
+                    updated_at = CURRENT_TIMESTAMP
+                FROM locked l
+                WHERE a.id = l.id AND l.currency = :fromCurrency AND a.balance >= :fromAmount
+                RETURNING a.balance
+            ), credit AS (
+                INSERT INTO accounts (user_id, currency, balance, created_at, updated_at)
+                SELECT :userId, :toCurrency, :toAmount, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM debit
+                ON CONFLICT (user_id, currency)
+                DO UPDATE SET balance = accounts.balance + EXCLUDED.balance, version = accounts.version + 1,
+                    updated_at = EXCLUDED.updated_at
+                RETURNING balance
+            )
+            SELECT (SELECT balance FROM debit) AS "fromBalance", (SELECT balance FROM credit) AS "toBalance"
+            """, nativeQuery = true)
+    ExchangeBalances exchange(@Param("userId") Long userId,
+                              @Param("fromCurrency") String fromCurrency,
+                              @Param("toCurrency") String toCurrency,
+                              @Param("fromAmount") BigDecimal fromAmount,
+                              @Param("toAmount") BigDecimal toAmount);
+    
+    interface ExchangeBalances {
+        BigDecimal getFromBalance();
+        
+        BigDecimal getToBalance();
+    }
+    
+    interface BalanceSnapshot {
+        Account.Currency getCurrency();
+        
+        BigDecimal getBalance();
+        
+        Long getVersion();
+    }
+}
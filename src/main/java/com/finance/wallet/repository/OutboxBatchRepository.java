@@ -0,0 +1,11 @@
+package com.finance.wallet.repository;
+
+import com.finance.wallet.entity.OutboxMessage;
+
+import java.util.List;
+
+public interface OutboxBatchRepository {
+    
+    // Inserts the messages in one JDBC batch; their ids are not read back
+    void insertAll(List<OutboxMessage> messages);
+}
@@ -0,0 +1,36 @@
+package com.finance.wallet.repository;
+
+import com.finance.wallet.entity.OutboxMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class OutboxBatchRepositoryImpl implements OutboxBatchRepository {
+    
+    private static final String INSERT = "INSERT INTO transaction_outbox (transaction_id, message_key, payload, " +
+            "created_at) VALUES (:transactionId, :messageKey, :payload, :createdAt)";
+    
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    
+    @Override
+    public void insertAll(List<OutboxMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        SqlParameterSource[] rows = messages.stream()
+                .map(message -> new MapSqlParameterSource()
+                        .addValue("transactionId", message.getTransactionId())
+                        .addValue("messageKey", message.getMessageKey())
+                        .addValue("payload", message.getPayload())
+                        .addValue("createdAt", now))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+}
@@ -0,0 +1,39 @@
+package com.finance.wallet.repository;
+
+import com.finance.wallet.entity.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long>, OutboxBatchRepository {
+    
+    // Walks the keys in order of their oldest pending row and claims them through a transaction-scoped advisory lock
+    // per message key. The try-lock runs inside the scan, so keys held by another relay worker are passed over and that
+    // worker gets the next free keys instead of an empty batch. Each claimed key contributes at most rowsPerKey of its
+    // oldest rows, which keeps a busy key from stretching the batch into one Kafka round trip per row.
+    @Query(value = """
+            SELECT o.* FROM (
+                SELECT k.message_key FROM (
+                    SELECT message_key, MIN(id) AS first_id FROM transaction_outbox
+                    GROUP BY message_key
+                    ORDER BY first_id
+                ) k
+                WHERE pg_try_advisory_xact_lock(hashtext('transaction_outbox'), hashtext(k.message_key))
+                LIMIT :limit
+            ) claimed
+            CROSS JOIN LATERAL (
+                SELECT r.* FROM transaction_outbox r
+                WHERE r.message_key = claimed.message_key
+                ORDER BY r.id
+                LIMIT :rowsPerKey
+                FOR UPDATE
+            ) o
+            ORDER BY o.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<OutboxMessage> lockNextBatch(@Param("limit") int limit, @Param("rowsPerKey") int rowsPerKey);
+}
@@ -0,0 +1,11 @@
+package com.finance.wallet.repository;
+
+import com.finance.wallet.entity.Transaction;
+
+import java.util.List;
+
+public interface TransactionBatchRepository {
+    
+    // Inserts the new transactions in one JDBC batch and sets their generated ids
+    void insertAll(List<Transaction> transactions);
+}
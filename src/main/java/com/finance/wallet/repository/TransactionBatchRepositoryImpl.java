@@ -0,0 +1,71 @@
+package com.finance.wallet.repository;
+
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC batch insert for {@link TransactionRepository}. Hibernate cannot batch inserts into an identity column, as it
+ * needs each generated id before the next statement; the driver returns all of them for one batch.
+ */
+@RequiredArgsConstructor
+public class TransactionBatchRepositoryImpl implements TransactionBatchRepository {
+    
+    private static final String INSERT = """
+            INSERT INTO transactions (user_id, type, currency, amount, to_currency, quoted_rate, to_amount, status,
+                                      idempotency_key, external_reference, description, created_at, updated_at)
+            VALUES (:userId, :type, :currency, :amount, :toCurrency, :quotedRate, :toAmount, :status,
+                    :idempotencyKey, :externalReference, :description, :createdAt, :createdAt)
+            """;
+    
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    
+    @Override
+    public void insertAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        SqlParameterSource[] rows = new SqlParameterSource[transactions.size()];
+        for (int i = 0; i < rows.length; i++) {
+            Transaction transaction = transactions.get(i);
+            transaction.setCreatedAt(now);
+            transaction.setUpdatedAt(now);
+            rows[i] = new MapSqlParameterSource()
+                    .addValue("userId", transaction.getUser().getId())
+                    .addValue("type", transaction.getType().name())
+                    .addValue("currency", transaction.getCurrency().name())
+                    .addValue("amount", transaction.getAmount())
+                    .addValue("toCurrency", name(transaction.getToCurrency()))
+                    .addValue("quotedRate", transaction.getQuotedRate())
+                    .addValue("toAmount", transaction.getToAmount())
+                    .addValue("status", transaction.getStatus().name())
+                    .addValue("idempotencyKey", transaction.getIdempotencyKey())
+                    .addValue("externalReference", transaction.getExternalReference())
+                    .addValue("description", transaction.getDescription())
+                    .addValue("createdAt", now);
+        }
+        
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(INSERT, rows, keys, new String[] {"id"});
+        
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < transactions.size(); i++) {
+            transactions.get(i).setId(((Number) generated.get(i).get("id")).longValue());
+        }
+    }
+    
+    private static String name(Account.Currency currency) {
+        return currency != null ? currency.name() : null;
+    }
+}
@@ -1,20 +1,28 @@
 package com.finance.wallet.repository;
 
+import com.finance.wallet.dto.TransactionResponse;
+import com.finance.wallet.dto.TransactionStatusEvent;
 import com.finance.wallet.entity.Transaction;
 import com.finance.wallet.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionBatchRepository {
     
     List<Transaction> findByUser(User user);
     
@@ -24,15 +32,91 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     
     List<Transaction> findByUserIdAndStatus(Long userId, Transaction.TransactionStatus status);
     
+    // Only read to answer a retried request, so Hibernate keeps no snapshot for dirty checking
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     Optional<Transaction> findByIdempotencyKey(String idempotencyKey);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Transaction> findByIdempotencyKeyIn(Collection<String> idempotencyKeys);
+    
     Optional<Transaction> findTopByUserIdOrderByCreatedAtDesc(Long userId);
     
     @Query("SELECT t FROM Transaction t WHERE t.user.id = :userId AND t.status = :status ORDER BY t.createdAt DESC")
     List<Transaction> findRecentTransactionsByUserAndStatus(@Param("userId") Long userId, 
                                                            @Param("status") Transaction.TransactionStatus status);
     
+    // Only the response columns, with user_id read off the row instead of through the LAZY user association
+    String RESPONSE_SELECT = "SELECT new com.finance.wallet.dto.TransactionResponse(t.id, t.user.id, t.type, " +
+            "t.currency, t.amount, t.toCurrency, t.quotedRate, t.toAmount, t.status, t.description, " +
+            "t.errorMessage, t.createdAt, t.processedAt) FROM Transaction t ";
+    
+    String HISTORY_FILTER = "WHERE t.user.id = :userId AND t.type IN :types AND t.status IN :statuses " +
+            "AND t.createdAt >= :from AND t.createdAt < :to ";
+    
+    // Keyset page of a user's history, newest first, strictly after the (createdAt, id) position of the previous page
+    @Query(RESPONSE_SELECT + HISTORY_FILTER +
+           "AND (t.createdAt < :afterCreatedAt OR (t.createdAt = :afterCreatedAt AND t.id < :afterId)) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TransactionResponse> findHistoryPage(@Param("userId") Long userId,
+                                              @Param("types") Collection<Transaction.TransactionType> types,
+                                              @Param("statuses") Collection<Transaction.TransactionStatus> statuses,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to,
+                                              @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                              @Param("afterId") Long afterId,
+                                              Pageable pageable);
+    
+    // Forward-only cursor; PostgreSQL only honours the fetch size inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(RESPONSE_SELECT + HISTORY_FILTER + "ORDER BY t.createdAt DESC, t.id DESC")
+    Stream<TransactionResponse> streamHistory(@Param("userId") Long userId,
+                                              @Param("types") Collection<Transaction.TransactionType> types,
+                                              @Param("statuses") Collection<Transaction.TransactionStatus> statuses,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to);
+    
+    String STATUS_EVENT_SELECT = "SELECT new com.finance.wallet.dto.TransactionStatusEvent(t.id, t.user.id, " +
+            "t.type, t.status, t.errorMessage, t.processedAt) FROM Transaction t ";
+    
+    @Query(STATUS_EVENT_SELECT + "WHERE t.user.id = :userId AND t.id IN :ids")
+    List<TransactionStatusEvent> findStatusEventsByUserIdAndIds(@Param("userId") Long userId,
+                                                                @Param("ids") Collection<Long> ids);
+    
+    // Pass a page of size 1 for the latest transaction
+    @Query("SELECT t.status AS status, t.type AS type, t.errorMessage AS errorMessage, " +
+           "t.createdAt AS createdAt, t.processedAt AS processedAt " +
+           "FROM Transaction t WHERE t.user.id = :userId ORDER BY t.createdAt DESC, t.id DESC")
+    List<TransactionStatusView> findLatestStatusByUserId(@Param("userId") Long userId, Pageable pageable);
+    
     @Query("SELECT t FROM Transaction t WHERE t.createdAt >= :since AND t.status = :status")
     List<Transaction> findTransactionsSince(@Param("since") LocalDateTime since, 
                                            @Param("status") Transaction.TransactionStatus status);
-} 
\ No newline at end of file
+    
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = :status, t.errorMessage = NULL, " +
+           "t.processedAt = :processedAt, t.updatedAt = :processedAt WHERE t.id IN :ids")
+    int updateStatusByIds(@Param("ids") Collection<Long> ids,
+                          @Param("status") Transaction.TransactionStatus status,
+                          @Param("processedAt") LocalDateTime processedAt);
+    
+    // Only moves transactions that are still in the expected status, so a redelivered message claims nothing
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Transaction t SET t.status = :status, t.updatedAt = :updatedAt " +
+           "WHERE t.id IN :ids AND t.status = :expectedStatus")
+    int updateStatusByIdsIfStatus(@Param("ids") Collection<Long> ids,
+                                  @Param("expectedStatus") Transaction.TransactionStatus expectedStatus,
+                                  @Param("status") Transaction.TransactionStatus status,
+                                  @Param("updatedAt") LocalDateTime updatedAt);
+    
+    interface TransactionStatusView {
+        Transaction.TransactionStatus getStatus();
+        
+        Transaction.TransactionType getType();
+        
+        String getErrorMessage();
+        
+        LocalDateTime getCreatedAt();
+        
+        LocalDateTime getProcessedAt();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.finance.wallet.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounds a CPU-heavy encoder such as BCrypt to a fixed number of concurrent hashes. The hash runs on the calling
+ * thread, which is held for it either way, instead of tying up a pool thread as well. At most maxWaiting callers wait
+ * for a slot, each for at most the timeout; past either bound the call fails at once with
+ * {@link PasswordHashingBusyException}, which is answered with 503. A login burst then uses at most maxConcurrent
+ * cores and parks at most maxWaiting request threads, leaving the rest for the other endpoints.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    
+    private final PasswordEncoder delegate;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final Duration timeout;
+    private final AtomicInteger waiting = new AtomicInteger();
+    
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int maxConcurrent, int maxWaiting, Duration timeout) {
+        this.delegate = delegate;
+        // Fair, so callers get their slot in arrival order and none waits out the timeout behind later ones
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaiting = maxWaiting;
+        this.timeout = timeout;
+    }
+    
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return call(() -> delegate.encode(rawPassword));
+    }
+    
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return call(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+    
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+    
+    public int activeHashes() {
+        return maxConcurrent - permits.availablePermits();
+    }
+    
+    public int waitingCallers() {
+        return waiting.get();
+    }
+    
+    private <T> T call(Supplier<T> task) {
+        acquire();
+        try {
+            return task.get();
+        } finally {
+            permits.release();
+        }
+    }
+    
+    private void acquire() {
+        try {
+            // A timed try keeps to the fair order, where a plain tryAcquire would jump ahead of the waiting callers
+            if (permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            if (waiting.incrementAndGet() > maxWaiting) {
+                waiting.decrementAndGet();
+                throw new PasswordHashingBusyException("Too many callers waiting for password hashing");
+            }
+            try {
+                if (!permits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new PasswordHashingBusyException("No password hashing slot within " + timeout);
+                }
+            } finally {
+                waiting.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        }
+    }
+}
@@ -1,79 +1,74 @@
 package com.finance.wallet.security;
 
+import com.finance.wallet.entity.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.Optional;
 
 @Component
 @Slf4j
 public class JwtUtils {
     
+    static final String USER_ID_CLAIM = "userId";
+    static final String PLAN_CLAIM = "plan";
+    
     @Value("${wallet.jwt.secret}")
     private String jwtSecret;
     
     @Value("${wallet.jwt.expiration-hours}")
     private int jwtExpirationHours;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    // The key and the parser are immutable and thread-safe, so they are built once instead of per token
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
     
-    public String generateJwtToken(String email, Long userId) {
+    public String generateJwtToken(String email, Long userId, User.Plan plan) {
         return Jwts.builder()
                 .subject(email)
-                .claim("userId", userId)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(PLAN_CLAIM, plan.name())
                 .issuedAt(new Date())
                 .expiration(Date.from(Instant.now().plus(jwtExpirationHours, ChronoUnit.HOURS)))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
-    public String getEmailFromJwtToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
-    }
-    
-    public Long getUserIdFromJwtToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        
-        return claims.get("userId", Long.class);
-    }
-    
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * Verifies the token's signature and expiry and returns its claims, or empty when the token is not valid. This is
+     * the only parse an authenticated request needs.
+     */
+    public Optional<Claims> parseClaims(String token) {
         try {
-            Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(authToken);
-            return true;
-        } catch (MalformedJwtException e) {
-            log.error("Invalid JWT token: {}", e.getMessage());
+            return Optional.of(parser.parseSignedClaims(token).getPayload());
         } catch (ExpiredJwtException e) {
-            log.error("JWT token is expired: {}", e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            log.error("JWT token is unsupported: {}", e.getMessage());
+            log.debug("JWT token is expired: {}", e.getMessage());
+        } catch (JwtException e) {
+            log.warn("Invalid JWT token: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
-            log.error("JWT claims string is empty: {}", e.getMessage());
+            log.warn("JWT claims string is empty: {}", e.getMessage());
         }
-        return false;
+        return Optional.empty();
     }
-} 
\ No newline at end of file
+}
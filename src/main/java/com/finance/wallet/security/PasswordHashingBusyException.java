@@ -0,0 +1,14 @@
+package com.finance.wallet.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Thrown by {@link BoundedPasswordEncoder} when no hashing slot frees up in time. An authentication service failure
+ * rather than bad credentials, so it is answered with 503 and the client retries.
+ */
+public class PasswordHashingBusyException extends AuthenticationServiceException {
+    
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -1,13 +1,14 @@
 package com.finance.wallet.security;
 
 import com.finance.wallet.entity.User;
+import io.jsonwebtoken.Claims;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
@@ -17,19 +18,35 @@ public class UserPrincipal implements UserDetails {
     private String name;
     private String email;
     private String password;
+    private User.Plan plan;
     
     public static UserPrincipal create(User user) {
         return new UserPrincipal(
             user.getId(),
             user.getName(),
             user.getEmail(),
-            user.getPassword()
+            user.getPassword(),
+            user.getPlan()
         );
     }
     
+    // Built from a verified token alone: no name and no password
+    public static UserPrincipal create(Claims claims) {
+        String plan = claims.get(JwtUtils.PLAN_CLAIM, String.class);
+        return new UserPrincipal(
+            claims.get(JwtUtils.USER_ID_CLAIM, Long.class),
+            null,
+            claims.getSubject(),
+            null,
+            // Tokens issued before plans existed count as standard
+            plan == null ? User.Plan.STANDARD : User.Plan.valueOf(plan)
+        );
+    }
+    
+    // No endpoint checks roles, so no user has any authorities
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.emptyList();
+        return List.of();
     }
     
     @Override
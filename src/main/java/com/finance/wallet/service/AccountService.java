@@ -1,6 +1,7 @@
 package com.finance.wallet.service;
 
 import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.Money;
 import com.finance.wallet.entity.User;
 import com.finance.wallet.repository.AccountRepository;
 import lombok.RequiredArgsConstructor;
@@ -9,10 +10,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -20,22 +18,7 @@ import java.util.stream.Collectors;
 public class AccountService {
     
     private final AccountRepository accountRepository;
-    
-    @Transactional(readOnly = true)
-    public List<Account> getAccountsByUserId(Long userId) {
-        return accountRepository.findByUserId(userId);
-    }
-    
-    @Transactional(readOnly = true)
-    public Map<Account.Currency, BigDecimal> getBalancesByUserId(Long userId) {
-        List<Account> accounts = accountRepository.findByUserId(userId);
-        return accounts.stream()
-                .collect(Collectors.toMap(
-                        Account::getCurrency,
-                        Account::getBalance,
-                        (existing, replacement) -> existing
-                ));
-    }
+    private final BalanceCacheService balanceCacheService;
     
     @Transactional
     public Account createAccount(User user, Account.Currency currency) {
@@ -55,36 +38,57 @@ public class AccountService {
     }
     
     @Transactional
-    public Account updateBalance(Long userId, Account.Currency currency, BigDecimal amount) {
-        Account account = accountRepository.findByUserIdAndCurrencyWithLock(userId, currency)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Account not found for user " + userId + " and currency " + currency));
+    public Money updateBalance(Long userId, Money delta) {
+        Account.Currency currency = delta.getCurrency();
+        Optional<BigDecimal> newBalance = accountRepository.applyBalanceDelta(userId, currency.name(), 
+                delta.toBigDecimal());
         
-        BigDecimal newBalance = account.getBalance().add(amount);
-        if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
+        if (newBalance.isEmpty()) {
+            BigDecimal currentBalance = accountRepository.findBalanceByUserIdAndCurrency(userId, currency)
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            "Account not found for user " + userId + " and currency " + currency));
             throw new IllegalArgumentException("Insufficient balance. Current: " + 
-                    account.getBalance() + ", Requested: " + amount.abs());
+                    currentBalance + ", Requested: " + delta.abs().toBigDecimal());
         }
         
-        account.setBalance(newBalance);
-        Account savedAccount = accountRepository.save(account);
-        
+        balanceCacheService.invalidateAfterCommit(userId);
+        Money balance = Money.of(newBalance.get(), currency);
         log.info("Updated balance for user {} in currency {}: {} -> {}", 
-                userId, currency, account.getBalance().subtract(amount), newBalance);
+                userId, currency, balance.minus(delta), balance);
         
-        return savedAccount;
+        return balance;
+    }
+    
+    @Transactional
+    public AccountRepository.ExchangeBalances exchange(Long userId, Money fromAmount, Money toAmount) {
+        Account.Currency fromCurrency = fromAmount.getCurrency();
+        Account.Currency toCurrency = toAmount.getCurrency();
+        if (fromCurrency == toCurrency) {
+            throw new IllegalArgumentException("Cannot exchange " + fromCurrency + " to itself");
+        }
+        
+        AccountRepository.ExchangeBalances balances = accountRepository.exchange(userId,
+                fromCurrency.name(), toCurrency.name(), fromAmount.toBigDecimal(), toAmount.toBigDecimal());
+        
+        if (balances.getFromBalance() == null) {
+            BigDecimal currentBalance = accountRepository.findBalanceByUserIdAndCurrency(userId, fromCurrency)
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            "Account not found for user " + userId + " and currency " + fromCurrency));
+            throw new IllegalArgumentException("Insufficient balance for exchange. Current: " + 
+                    currentBalance + ", Requested: " + fromAmount.toBigDecimal());
+        }
+        
+        balanceCacheService.invalidateAfterCommit(userId);
+        log.info("Exchanged {} to {} for user {}, balances now {} {} and {} {}", 
+                fromAmount, toAmount, userId,
+                balances.getFromBalance(), fromCurrency, balances.getToBalance(), toCurrency);
+        
+        return balances;
     }
     
     @Transactional(readOnly = true)
     public BigDecimal getBalance(Long userId, Account.Currency currency) {
-        return accountRepository.findByUserIdAndCurrency(userId, currency)
-                .map(Account::getBalance)
+        return accountRepository.findBalanceByUserIdAndCurrency(userId, currency)
                 .orElse(BigDecimal.ZERO);
     }
-    
-    @Transactional
-    public boolean hasValidBalance(Long userId, Account.Currency currency, BigDecimal amount) {
-        BigDecimal currentBalance = getBalance(userId, currency);
-        return currentBalance.compareTo(amount) >= 0;
-    }
 } 
\ No newline at end of file
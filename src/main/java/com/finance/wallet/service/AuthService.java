@@ -2,11 +2,15 @@ package com.finance.wallet.service;
 
 import com.finance.wallet.dto.LoginRequest;
 import com.finance.wallet.dto.LoginResponse;
-import com.finance.wallet.entity.User;
 import com.finance.wallet.security.JwtUtils;
+import com.finance.wallet.security.PasswordHashingBusyException;
+import com.finance.wallet.security.UserPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,33 +22,46 @@ import org.springframework.stereotype.Service;
 public class AuthService {
     
     private final AuthenticationManager authenticationManager;
-    private final UserService userService;
     private final JwtUtils jwtUtils;
+    private final MeterRegistry meterRegistry;
     
     public LoginResponse authenticateUser(LoginRequest request) {
-        Authentication authentication = authenticationManager.authenticate(
-            new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-        );
-        
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        
-        String jwt = jwtUtils.generateJwtToken(request.getEmail(), getUserIdFromEmail(request.getEmail()));
-        
-        User user = userService.findByEmail(request.getEmail())
-            .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        return LoginResponse.builder()
-            .token(jwt)
-            .type("Bearer")
-            .userId(user.getId())
-            .email(user.getEmail())
-            .name(user.getName())
-            .build();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            Authentication authentication = authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
+            );
+            
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+            
+            // Loaded once by the authentication provider; the token and the response need nothing more
+            UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
+            String jwt = jwtUtils.generateJwtToken(user.getEmail(), user.getId(), user.getPlan());
+            
+            outcome = "success";
+            return LoginResponse.builder()
+                .token(jwt)
+                .type("Bearer")
+                .userId(user.getId())
+                .email(user.getEmail())
+                .name(user.getName())
+                .build();
+        } catch (PasswordHashingBusyException e) {
+            outcome = "rejected";
+            throw e;
+        } catch (InternalAuthenticationServiceException e) {
+            // The provider wraps what fails around the user lookup, which includes hashing for an unknown email
+            if (e.getCause() instanceof PasswordHashingBusyException busy) {
+                outcome = "rejected";
+                throw busy;
+            }
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("wallet.auth.login")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        }
     }
-    
-    private Long getUserIdFromEmail(String email) {
-        return userService.findByEmail(email)
-            .map(User::getId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-    }
-} 
\ No newline at end of file
+}
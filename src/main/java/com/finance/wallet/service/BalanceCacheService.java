@@ -0,0 +1,177 @@
+package com.finance.wallet.service;
+
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-through Redis cache of each user's balance map. A committed balance change does not reload anything: it
+ * replaces the entry with a tombstone that only carries a bumped generation, and the next read repopulates it. A reader
+ * remembers the generation it saw before going to the database and its write is dropped if the generation has moved
+ * on, so a snapshot taken before a commit can never resurrect the balances that commit replaced. Entries also carry
+ * the sum of the user's account versions, which only grows, and are never replaced by an older one. A near cache on
+ * each node sits in front of Redis and is invalidated cluster-wide together with the entry.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BalanceCacheService {
+    
+    private static final String CACHE_KEY_PREFIX = "balance:";
+    private static final String VERSION_FIELD = "version";
+    private static final String GENERATION_FIELD = "generation";
+    
+    private static final RedisScript<Long> WRITE_IF_CURRENT = new DefaultRedisScript<>("""
+            local generation = redis.call('HGET', KEYS[1], 'generation') or '0'
+            if generation ~= ARGV[1] then
+                return 0
+            end
+            local current = redis.call('HGET', KEYS[1], 'version')
+            if current and tonumber(current) >= tonumber(ARGV[2]) then
+                return 0
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], 'generation', generation, 'version', ARGV[2], unpack(ARGV, 4))
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            return 1
+            """, Long.class);
+    
+    private static final RedisScript<Long> INVALIDATE = new DefaultRedisScript<>("""
+            local generation = redis.call('HINCRBY', KEYS[1], 'generation', 1)
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], 'generation', generation)
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            return generation
+            """, Long.class);
+    
+    private final RedisTemplate<String, String> redisTemplate;
+    private final AccountRepository accountRepository;
+    private final NearCache<Long, Map<Account.Currency, BigDecimal>> balanceNearCache;
+    private final NearCacheInvalidator nearCacheInvalidator;
+    
+    @Value("${wallet.balance-cache.ttl:10m}")
+    private Duration ttl;
+    
+    // Served from the near cache when possible, then Redis, then the database
+    public Map<Account.Currency, BigDecimal> getBalances(Long userId) {
+        return balanceNearCache.get(userId, key -> Collections.unmodifiableMap(loadBalances(key)));
+    }
+    
+    private Map<Account.Currency, BigDecimal> loadBalances(Long userId) {
+        Map<Object, Object> entry = getCached(userId);
+        if (entry != null && entry.containsKey(VERSION_FIELD)) {
+            return toBalances(entry);
+        }
+        
+        log.debug("Balance cache miss for user {}", userId);
+        List<AccountRepository.BalanceSnapshot> snapshot = accountRepository.findBalanceSnapshotByUserId(userId);
+        if (entry != null) {
+            write(userId, (String) entry.getOrDefault(GENERATION_FIELD, "0"), snapshot);
+        }
+        
+        Map<Account.Currency, BigDecimal> balances = new EnumMap<>(Account.Currency.class);
+        snapshot.forEach(account -> balances.put(account.getCurrency(), account.getBalance()));
+        return balances;
+    }
+    
+    /**
+     * Invalidates the user's entry once the surrounding transaction has committed, or right away outside a
+     * transaction. Several changes for the same user in one transaction cause a single invalidation.
+     */
+    public void invalidateAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(userId);
+            return;
+        }
+        
+        @SuppressWarnings("unchecked")
+        Set<Long> pending = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Long> userIds = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, userIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userIds.forEach(BalanceCacheService.this::invalidate);
+                }
+                
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(BalanceCacheService.this);
+                }
+            });
+            pending = userIds;
+        }
+        pending.add(userId);
+    }
+    
+    void invalidate(Long userId) {
+        try {
+            redisTemplate.execute(INVALIDATE, List.of(CACHE_KEY_PREFIX + userId), Long.toString(ttl.toMillis()));
+        } catch (Exception e) {
+            // The TTL bounds how long the old entry can be served
+            log.warn("Failed to invalidate cached balances of user {}: {}", userId, e.getMessage());
+        }
+        // Redis no longer holds the old balances, so nodes reloading after the invalidation go to the database
+        nearCacheInvalidator.invalidate(balanceNearCache, userId);
+    }
+    
+    // Dropped by the script when the entry was invalidated after the generation was read, or already holds newer data
+    private void write(Long userId, String generation, List<AccountRepository.BalanceSnapshot> snapshot) {
+        long version = 0;
+        List<Object> args = new ArrayList<>(3 + snapshot.size() * 2);
+        args.add(generation);
+        args.add(null);
+        args.add(Long.toString(ttl.toMillis()));
+        for (AccountRepository.BalanceSnapshot account : snapshot) {
+            version += account.getVersion();
+            args.add(account.getCurrency().name());
+            args.add(account.getBalance().toPlainString());
+        }
+        args.set(1, Long.toString(version));
+        
+        try {
+            redisTemplate.execute(WRITE_IF_CURRENT, List.of(CACHE_KEY_PREFIX + userId), args.toArray());
+        } catch (Exception e) {
+            log.warn("Failed to cache balances of user {}: {}", userId, e.getMessage());
+        }
+    }
+    
+    // Null when Redis cannot be read; an empty map or a tombstone without a version is a miss
+    private Map<Object, Object> getCached(Long userId) {
+        try {
+            return redisTemplate.opsForHash().entries(CACHE_KEY_PREFIX + userId);
+        } catch (Exception e) {
+            log.warn("Failed to read cached balances of user {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+    
+    private Map<Account.Currency, BigDecimal> toBalances(Map<Object, Object> entry) {
+        Map<Account.Currency, BigDecimal> balances = new EnumMap<>(Account.Currency.class);
+        entry.forEach((field, value) -> {
+            if (!VERSION_FIELD.equals(field) && !GENERATION_FIELD.equals(field)) {
+                balances.put(Account.Currency.valueOf((String) field), new BigDecimal((String) value));
+            }
+        });
+        return balances;
+    }
+}
@@ -0,0 +1,60 @@
+package com.finance.wallet.service;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opens after {@code failureThreshold} consecutive failures and rejects calls without running them for
+ * {@code openDuration}. After that a single trial call is let through: success closes the breaker, failure opens
+ * it again.
+ */
+public class CircuitBreaker {
+    
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+    private volatile boolean open;
+    private volatile long openedAtNanos;
+    
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+    }
+    
+    public <T> T call(Callable<T> action) throws Exception {
+        boolean trial = false;
+        if (open) {
+            if (System.nanoTime() - openedAtNanos < openDurationNanos || !trialInFlight.compareAndSet(false, true)) {
+                throw new IllegalStateException("Circuit breaker " + name + " is open");
+            }
+            trial = true;
+        }
+        
+        try {
+            T result = action.call();
+            consecutiveFailures.set(0);
+            open = false;
+            return result;
+        } catch (Exception e) {
+            if (trial || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                openedAtNanos = System.nanoTime();
+                open = true;
+            }
+            throw e;
+        } finally {
+            if (trial) {
+                trialInFlight.set(false);
+            }
+        }
+    }
+    
+    public boolean isOpen() {
+        return open;
+    }
+}
@@ -0,0 +1,71 @@
+package com.finance.wallet.service;
+
+import com.finance.wallet.entity.Account;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The currencies the wallet trades and how their rates relate. Every {@link Account.Currency} is supported and its
+ * ordinal indexes the rate matrix. Rates are fetched against the pivot currency only; every other pair is
+ * triangulated through it. The fallback rates (units per pivot, from {@code wallet.fx.fallback-rates}) are used when
+ * neither the provider nor Redis has a rate.
+ */
+public class CurrencyRegistry {
+    
+    private static final Account.Currency[] CURRENCIES = Account.Currency.values();
+    
+    private final Account.Currency pivot;
+    private final Map<String, BigDecimal> fallbackPivotRates;
+    private final FxRateMatrix fallbackMatrix;
+    
+    public CurrencyRegistry(Account.Currency pivot, Map<Account.Currency, BigDecimal> fallbackRates) {
+        this.pivot = pivot;
+        
+        Map<String, BigDecimal> pivotRates = new LinkedHashMap<>();
+        fallbackRates.forEach((currency, rate) -> {
+            if (currency != pivot) {
+                pivotRates.put(currency.name(), rate);
+            }
+        });
+        this.fallbackPivotRates = Collections.unmodifiableMap(pivotRates);
+        this.fallbackMatrix = FxRateMatrix.fromPivotRates(pivot.ordinal(), toPerPivot(pivotRates), 0L);
+    }
+    
+    public Account.Currency getPivot() {
+        return pivot;
+    }
+    
+    public int size() {
+        return CURRENCIES.length;
+    }
+    
+    public Account.Currency resolve(String code) {
+        for (Account.Currency currency : CURRENCIES) {
+            if (currency.name().equals(code)) {
+                return currency;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported currency: " + code);
+    }
+    
+    // Fallback rates of every currency against the pivot, keyed by currency code
+    public Map<String, BigDecimal> getFallbackPivotRates() {
+        return fallbackPivotRates;
+    }
+    
+    FxRateMatrix getFallbackMatrix() {
+        return fallbackMatrix;
+    }
+    
+    // Lays out rates against the pivot by ordinal, the pivot itself being 1; currencies without a rate stay null
+    BigDecimal[] toPerPivot(Map<String, BigDecimal> pivotRates) {
+        BigDecimal[] perPivot = new BigDecimal[CURRENCIES.length];
+        for (Account.Currency currency : CURRENCIES) {
+            perPivot[currency.ordinal()] = currency == pivot ? BigDecimal.ONE : pivotRates.get(currency.name());
+        }
+        return perPivot;
+    }
+}
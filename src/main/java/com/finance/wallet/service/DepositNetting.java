@@ -0,0 +1,92 @@
+package com.finance.wallet.service;
+
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.Money;
+import com.finance.wallet.entity.Transaction;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+class DepositNetting {
+
+    private final Map<Account.Currency, NettedDeposit> pending = new EnumMap<>(Account.Currency.class);
+
+    boolean add(KafkaProducerService.TransactionMessage message) {
+        if (message.type != Transaction.TransactionType.DEPOSIT) {
+            return false;
+        }
+
+        Account.Currency currency = message.currency;
+        Money amount;
+        try {
+            amount = Money.ofMicros(message.amountMicros, currency);
+        } catch (RuntimeException e) {
+            // Malformed deposits go through the regular path so they fail with their own error message
+            return false;
+        }
+
+        if (amount.signum() <= 0) {
+            return false;
+        }
+
+        NettedDeposit deposit = pending.computeIfAbsent(currency, key -> new NettedDeposit(message.userId, key));
+        try {
+            deposit.add(message, amount);
+        } catch (ArithmeticException e) {
+            // A total beyond the column's range is not netted, the deposit is applied on its own
+            return false;
+        }
+        return true;
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    List<NettedDeposit> drain() {
+        List<NettedDeposit> deposits = new ArrayList<>(pending.values());
+        pending.clear();
+        return deposits;
+    }
+
+    static class NettedDeposit {
+
+        private final Long userId;
+        private final Account.Currency currency;
+        private final List<KafkaProducerService.TransactionMessage> messages = new ArrayList<>();
+        private Money total;
+
+        NettedDeposit(Long userId, Account.Currency currency) {
+            this.userId = userId;
+            this.currency = currency;
+            this.total = Money.zero(currency);
+        }
+
+        void add(KafkaProducerService.TransactionMessage message, Money amount) {
+            total = total.plus(amount);
+            messages.add(message);
+        }
+
+        Long getUserId() {
+            return userId;
+        }
+
+        Account.Currency getCurrency() {
+            return currency;
+        }
+
+        Money getTotal() {
+            return total;
+        }
+
+        List<KafkaProducerService.TransactionMessage> getMessages() {
+            return messages;
+        }
+
+        List<Long> getTransactionIds() {
+            return messages.stream().map(message -> message.id).toList();
+        }
+    }
+}
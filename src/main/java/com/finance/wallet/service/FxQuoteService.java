@@ -0,0 +1,112 @@
+package com.finance.wallet.service;
+
+import com.finance.wallet.dto.FxQuoteResponse;
+import com.finance.wallet.entity.Account;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FxQuoteService {
+    
+    private final FxRateService fxRateService;
+    private final RedisTemplate<String, String> redisTemplate;
+    
+    @Value("${wallet.fx.quote-ttl:30s}")
+    private Duration quoteTtl;
+    
+    private static final String QUOTE_KEY_PREFIX = "fx_quote:";
+    private static final String CLAIM_KEY_PREFIX = "fx_quote_claim:";
+    
+    public FxQuoteResponse issueQuote(Long userId, Account.Currency fromCurrency, Account.Currency toCurrency) {
+        if (fromCurrency == toCurrency) {
+            throw new IllegalArgumentException("Cannot quote " + fromCurrency + " to itself");
+        }
+        
+        BigDecimal rate = fxRateService.getExchangeRate(fromCurrency, toCurrency);
+        String quoteId = UUID.randomUUID().toString();
+        Instant expiresAt = Instant.now().plus(quoteTtl);
+        
+        // Stored in Redis so a quote issued by one instance can be redeemed on any other
+        String value = userId + ":" + fromCurrency + ":" + toCurrency + ":" + rate.toPlainString() + ":" 
+                + expiresAt.toEpochMilli();
+        redisTemplate.opsForValue().set(QUOTE_KEY_PREFIX + quoteId, value, quoteTtl);
+        
+        log.info("Issued FX quote {} for user {}: {}/{} at {}", quoteId, userId, fromCurrency, toCurrency, rate);
+        
+        return FxQuoteResponse.builder()
+                .quoteId(quoteId)
+                .fromCurrency(fromCurrency)
+                .toCurrency(toCurrency)
+                .rate(rate)
+                .expiresAt(expiresAt)
+                .build();
+    }
+    
+    /**
+     * Validates the quote and claims it for the surrounding transaction. The quote is only removed once that
+     * transaction commits; if it rolls back the claim is released and the quote can be used again until it expires.
+     */
+    public BigDecimal redeemQuote(String quoteId, Long userId, Account.Currency fromCurrency, 
+                                  Account.Currency toCurrency) {
+        String value = redisTemplate.opsForValue().get(QUOTE_KEY_PREFIX + quoteId);
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown or expired FX quote: " + quoteId);
+        }
+        
+        String[] parts = value.split(":");
+        long remainingMillis = Long.parseLong(parts[4]) - Instant.now().toEpochMilli();
+        if (remainingMillis <= 0) {
+            throw new IllegalArgumentException("Unknown or expired FX quote: " + quoteId);
+        }
+        if (!parts[0].equals(String.valueOf(userId)) || !parts[1].equals(fromCurrency.name()) 
+                || !parts[2].equals(toCurrency.name())) {
+            throw new IllegalArgumentException("FX quote " + quoteId + " does not match the exchange request");
+        }
+        
+        // Held until the redeeming transaction completes, so a concurrent exchange can't use the same quote
+        Boolean claimed = redisTemplate.opsForValue().setIfAbsent(CLAIM_KEY_PREFIX + quoteId, String.valueOf(userId),
+                Duration.ofMillis(remainingMillis));
+        if (!Boolean.TRUE.equals(claimed)) {
+            throw new IllegalArgumentException("FX quote " + quoteId + " has already been used");
+        }
+        removeAfterCommit(quoteId);
+        
+        return new BigDecimal(parts[3]);
+    }
+    
+    private void removeAfterCommit(String quoteId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            redisTemplate.delete(List.of(QUOTE_KEY_PREFIX + quoteId, CLAIM_KEY_PREFIX + quoteId));
+            return;
+        }
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        redisTemplate.delete(List.of(QUOTE_KEY_PREFIX + quoteId, CLAIM_KEY_PREFIX + quoteId));
+                    } else {
+                        redisTemplate.delete(CLAIM_KEY_PREFIX + quoteId);
+                    }
+                } catch (Exception e) {
+                    // A claim left behind expires with the quote and keeps it from being used meanwhile
+                    log.warn("Failed to settle FX quote {}: {}", quoteId, e.getMessage());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package com.finance.wallet.service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Immutable dense matrix of the rate for every currency pair, indexed by {@code from.ordinal() * n + to.ordinal()}.
+ * It is built once per refresh from the rates against the pivot currency, so a lookup is a single array read that
+ * allocates nothing, however many currencies there are. A refresh builds a new matrix and swaps it in.
+ */
+final class FxRateMatrix {
+    
+    // Significant digits rather than a fixed scale, so a small cross rate such as JPY/GBP keeps its precision;
+    // the converted amount is rounded once, in Money.convert
+    static final MathContext RATE_PRECISION = MathContext.DECIMAL64;
+    
+    static final FxRateMatrix EMPTY = new FxRateMatrix(0, new BigDecimal[0], Long.MIN_VALUE);
+    
+    private final int size;
+    private final BigDecimal[] rates;
+    private final long fetchedAtMillis;
+    
+    private FxRateMatrix(int size, BigDecimal[] rates, long fetchedAtMillis) {
+        this.size = size;
+        this.rates = rates;
+        this.fetchedAtMillis = fetchedAtMillis;
+    }
+    
+    /**
+     * @param perPivot units of each currency per one unit of the pivot, indexed by ordinal; {@code null} where the
+     *                 currency has no rate, which leaves all of its pairs without a rate
+     */
+    static FxRateMatrix fromPivotRates(int pivotIndex, BigDecimal[] perPivot, long fetchedAtMillis) {
+        int size = perPivot.length;
+        BigDecimal[] rates = new BigDecimal[size * size];
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                rates[from * size + to] = crossRate(pivotIndex, perPivot, from, to);
+            }
+        }
+        return new FxRateMatrix(size, rates, fetchedAtMillis);
+    }
+    
+    // Triangulates through the pivot: from -> pivot -> to. Pivot legs are used as fetched, without a division
+    static BigDecimal crossRate(int pivotIndex, BigDecimal[] perPivot, int from, int to) {
+        if (from == to) {
+            return BigDecimal.ONE;
+        }
+        BigDecimal fromLeg = perPivot[from];
+        BigDecimal toLeg = perPivot[to];
+        if (fromLeg == null || toLeg == null || fromLeg.signum() <= 0) {
+            return null;
+        }
+        if (from == pivotIndex) {
+            return toLeg;
+        }
+        return toLeg.divide(fromLeg, RATE_PRECISION);
+    }
+    
+    // Null when the pair has no rate
+    BigDecimal getRate(int from, int to) {
+        return size == 0 ? null : rates[from * size + to];
+    }
+    
+    boolean isFresh(long nowMillis, long maxAgeMillis) {
+        return fetchedAtMillis != Long.MIN_VALUE && nowMillis - fetchedAtMillis < maxAgeMillis;
+    }
+    
+    long getFetchedAtMillis() {
+        return fetchedAtMillis;
+    }
+}
@@ -0,0 +1,17 @@
+package com.finance.wallet.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Source of FX rates. Selected with {@code wallet.fx.provider}: {@code http} (default) calls the configured FX API,
+ * {@code stub} serves fixed rates without any network access.
+ */
+public interface FxRateProvider {
+    
+    /**
+     * Fetches the rates from {@code baseCurrency} to every other supported currency, keyed by currency code.
+     */
+    CompletableFuture<Map<String, BigDecimal>> fetchRates(String baseCurrency);
+}
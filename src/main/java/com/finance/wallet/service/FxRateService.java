@@ -1,18 +1,29 @@
 package com.finance.wallet.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.wallet.entity.Account;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Duration;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @RequiredArgsConstructor
@@ -20,89 +31,195 @@ import java.util.Optional;
 public class FxRateService {
     
     private final RedisTemplate<String, String> redisTemplate;
-    private final ObjectMapper objectMapper;
-    
-    @Value("${wallet.fx.api.url}")
-    private String fxApiUrl;
+    private final FxRateProvider fxRateProvider;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreaker fxProviderCircuitBreaker;
+    private final CurrencyRegistry currencyRegistry;
     
     @Value("${wallet.fx.cache-ttl}")
     private Duration cacheTtl;
     
+    @Value("${wallet.fx.max-rate-age:5m}")
+    private Duration maxRateAge;
+    
+    @Value("${wallet.fx.fetch-timeout:5s}")
+    private Duration fetchTimeout;
+    
     private static final String CACHE_KEY_PREFIX = "fx_rate:";
     
+    private volatile FxRateMatrix rateMatrix = FxRateMatrix.EMPTY;
+    private final ConcurrentMap<String, CompletableFuture<BigDecimal>> loadsInFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Account.Currency, CompletableFuture<FxRateMatrix>> refreshInFlight = 
+            new ConcurrentHashMap<>();
+    private final ExecutorService fetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("wallet.fx.rate.age", this, FxRateService::getRateAgeSeconds)
+                .tag("base", currencyRegistry.getPivot().name())
+                .baseUnit("seconds")
+                .description("Time since the rates of the pivot currency were last fetched")
+                .register(meterRegistry);
+    }
+    
     public BigDecimal getExchangeRate(String fromCurrency, String toCurrency) {
         if (fromCurrency.equals(toCurrency)) {
             return BigDecimal.ONE;
         }
+        return getExchangeRate(currencyRegistry.resolve(fromCurrency), currencyRegistry.resolve(toCurrency));
+    }
+    
+    public BigDecimal getExchangeRate(Account.Currency fromCurrency, Account.Currency toCurrency) {
+        if (fromCurrency == toCurrency) {
+            return BigDecimal.ONE;
+        }
         
-        String cacheKey = CACHE_KEY_PREFIX + fromCurrency + "_" + toCurrency;
-        
-        Optional<BigDecimal> cachedRate = getCachedRate(cacheKey);
-        if (cachedRate.isPresent()) {
-            log.debug("Using cached FX rate for {}/{}: {}", fromCurrency, toCurrency, cachedRate.get());
-            return cachedRate.get();
+        long now = System.currentTimeMillis();
+        FxRateMatrix matrix = rateMatrix;
+        if (matrix.isFresh(now, maxRateAge.toMillis())) {
+            BigDecimal rate = matrix.getRate(fromCurrency.ordinal(), toCurrency.ordinal());
+            if (rate != null) {
+                // Past the cache TTL but within max-rate-age: serve the last good rate while one refresh runs
+                if (!matrix.isFresh(now, cacheTtl.toMillis())) {
+                    refreshInBackground();
+                }
+                return rate;
+            }
         }
         
+        // Concurrent misses for the same pair wait for a single load instead of each calling the provider
+        String pair = fromCurrency.name() + "_" + toCurrency.name();
+        CompletableFuture<BigDecimal> load = loadsInFlight.computeIfAbsent(pair, key -> {
+            CompletableFuture<BigDecimal> future = CompletableFuture.supplyAsync(
+                    () -> loadRate(fromCurrency, toCurrency), fetchExecutor);
+            // Async so the removal never runs inside computeIfAbsent when the load has already completed
+            future.whenCompleteAsync((rate, e) -> loadsInFlight.remove(key, future), fetchExecutor);
+            return future;
+        });
+        
         try {
-            BigDecimal rate = fetchRateFromApi(fromCurrency, toCurrency);
-            cacheRate(cacheKey, rate);
-            log.info("Fetched and cached FX rate for {}/{}: {}", fromCurrency, toCurrency, rate);
-            return rate;
-        } catch (Exception e) {
+            return load.get(fetchTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("FX rate service unavailable", e);
+        } catch (ExecutionException | TimeoutException e) {
             log.error("Failed to fetch FX rate for {}/{}", fromCurrency, toCurrency, e);
             throw new RuntimeException("FX rate service unavailable", e);
         }
     }
     
-    private Optional<BigDecimal> getCachedRate(String cacheKey) {
+    private BigDecimal loadRate(Account.Currency fromCurrency, Account.Currency toCurrency) {
+        BigDecimal cachedRate = getCachedRate(fromCurrency, toCurrency);
+        if (cachedRate != null) {
+            log.debug("Using cached FX rate for {}/{}: {}", fromCurrency, toCurrency, cachedRate);
+            return cachedRate;
+        }
+        
         try {
-            String cachedValue = redisTemplate.opsForValue().get(cacheKey);
-            if (cachedValue != null) {
-                return Optional.of(new BigDecimal(cachedValue));
+            BigDecimal rate = refreshPivotRates().get(fetchTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .getRate(fromCurrency.ordinal(), toCurrency.ordinal());
+            if (rate != null) {
+                log.info("Fetched and cached FX rate for {}/{}: {}", fromCurrency, toCurrency, rate);
+                return rate;
             }
         } catch (Exception e) {
-            log.warn("Failed to get cached FX rate for key: {}", cacheKey, e);
+            log.warn("Failed to fetch real FX rate, using fallback rate: {}", e.getMessage());
         }
-        return Optional.empty();
+        
+        BigDecimal fallbackRate = currencyRegistry.getFallbackMatrix()
+                .getRate(fromCurrency.ordinal(), toCurrency.ordinal());
+        if (fallbackRate == null) {
+            throw new IllegalStateException("No FX rate available for " + fromCurrency + "/" + toCurrency);
+        }
+        return fallbackRate;
     }
     
-    private void cacheRate(String cacheKey, BigDecimal rate) {
+    private void refreshInBackground() {
+        refreshPivotRates().exceptionally(e -> {
+            log.warn("Background refresh of FX rates failed: {}", e.getMessage());
+            return null;
+        });
+    }
+    
+    // Fetches the pivot's rates once per interval and rebuilds the whole matrix, so exchanges read rates without I/O
+    @Scheduled(fixedDelayString = "${wallet.fx.refresh-interval-ms:30000}")
+    public void refreshRates() {
         try {
-            redisTemplate.opsForValue().set(cacheKey, rate.toString(), cacheTtl);
+            refreshPivotRates().join();
         } catch (Exception e) {
-            log.warn("Failed to cache FX rate for key: {}", cacheKey, e);
+            log.warn("Failed to refresh FX rates, keeping the previous rates: {}", e.getMessage());
+        }
+    }
+    
+    // Every refresh fetches the same pivot row, so callers arriving while one is running share it
+    private CompletableFuture<FxRateMatrix> refreshPivotRates() {
+        return refreshInFlight.computeIfAbsent(currencyRegistry.getPivot(), pivot -> {
+            CompletableFuture<FxRateMatrix> future = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return fetchPivotRates(pivot);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, fetchExecutor);
+            future.whenCompleteAsync((matrix, e) -> refreshInFlight.remove(pivot, future), fetchExecutor);
+            return future;
+        });
+    }
+    
+    private FxRateMatrix fetchPivotRates(Account.Currency pivot) throws Exception {
+        // While the provider keeps failing, calls fail fast here instead of each waiting for its timeout
+        Map<String, BigDecimal> rates = fxProviderCircuitBreaker.call(() -> fxRateProvider.fetchRates(pivot.name())
+                .get(fetchTimeout.toMillis(), TimeUnit.MILLISECONDS));
+        FxRateMatrix matrix = FxRateMatrix.fromPivotRates(pivot.ordinal(), currencyRegistry.toPerPivot(rates), 
+                System.currentTimeMillis());
+        rateMatrix = matrix;
+        rates.forEach((quote, rate) -> cacheRate(CACHE_KEY_PREFIX + pivot + "_" + quote, rate));
+        log.debug("Refreshed {} FX rates against pivot {}", rates.size(), pivot);
+        return matrix;
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        fetchExecutor.close();
+    }
+    
+    double getRateAgeSeconds() {
+        FxRateMatrix matrix = rateMatrix;
+        return matrix == FxRateMatrix.EMPTY ? Double.NaN 
+                : (System.currentTimeMillis() - matrix.getFetchedAtMillis()) / 1000.0;
+    }
+    
+    // Redis holds the legs against the pivot, a cross pair is triangulated from its two legs
+    private BigDecimal getCachedRate(Account.Currency fromCurrency, Account.Currency toCurrency) {
+        Account.Currency pivot = currencyRegistry.getPivot();
+        BigDecimal[] perPivot = new BigDecimal[currencyRegistry.size()];
+        perPivot[pivot.ordinal()] = BigDecimal.ONE;
+        if (fromCurrency != pivot) {
+            perPivot[fromCurrency.ordinal()] = getCachedPivotRate(CACHE_KEY_PREFIX + pivot + "_" + fromCurrency);
+        }
+        if (toCurrency != pivot) {
+            perPivot[toCurrency.ordinal()] = getCachedPivotRate(CACHE_KEY_PREFIX + pivot + "_" + toCurrency);
         }
+        return FxRateMatrix.crossRate(pivot.ordinal(), perPivot, fromCurrency.ordinal(), toCurrency.ordinal());
     }
     
-    private BigDecimal fetchRateFromApi(String fromCurrency, String toCurrency) {
+    private BigDecimal getCachedPivotRate(String cacheKey) {
         try {
-            RestTemplate restTemplate = new RestTemplate();
-            String url = fxApiUrl + fromCurrency;
-            
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode jsonNode = objectMapper.readTree(response);
-            
-            if (jsonNode.has("rates") && jsonNode.get("rates").has(toCurrency)) {
-                double rate = jsonNode.get("rates").get(toCurrency).asDouble();
-                return BigDecimal.valueOf(rate).setScale(6, RoundingMode.HALF_UP);
-            } else {
-                return getMockExchangeRate(fromCurrency, toCurrency);
+            String cachedValue = redisTemplate.opsForValue().get(cacheKey);
+            if (cachedValue != null) {
+                return new BigDecimal(cachedValue);
             }
         } catch (Exception e) {
-            log.warn("Failed to fetch real FX rate, using mock rate", e);
-            return getMockExchangeRate(fromCurrency, toCurrency);
+            log.warn("Failed to get cached FX rate for key: {}", cacheKey, e);
         }
+        return null;
     }
-
-
-    //TODO Mock exchange rates for demo purposes for production should implement a real API call like https://www.exchangerate-api.com/
-    private BigDecimal getMockExchangeRate(String fromCurrency, String toCurrency) {
-        if ("USD".equals(fromCurrency) && "TRY".equals(toCurrency)) {
-            return BigDecimal.valueOf(33.25); // 1 USD = 33.25 TRY
-        } else if ("TRY".equals(fromCurrency) && "USD".equals(toCurrency)) {
-            return BigDecimal.valueOf(0.030075); // 1 TRY = 0.030075 USD
+    
+    private void cacheRate(String cacheKey, BigDecimal rate) {
+        try {
+            redisTemplate.opsForValue().set(cacheKey, rate.toString(), cacheTtl);
+        } catch (Exception e) {
+            log.warn("Failed to cache FX rate for key: {}", cacheKey, e);
         }
-        
-        return BigDecimal.ONE;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,95 @@
+package com.finance.wallet.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.wallet.entity.Account;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@Component
+@ConditionalOnProperty(name = "wallet.fx.provider", havingValue = "http", matchIfMissing = true)
+@Slf4j
+public class HttpFxRateProvider implements FxRateProvider {
+    
+    private final ObjectMapper objectMapper;
+    private final String fxApiUrl;
+    private final Duration readTimeout;
+    private final HttpClient httpClient;
+    
+    public HttpFxRateProvider(ObjectMapper objectMapper,
+                              @Value("${wallet.fx.api.url}") String fxApiUrl,
+                              @Value("${wallet.fx.api.connect-timeout:2s}") Duration connectTimeout,
+                              @Value("${wallet.fx.api.read-timeout:3s}") Duration readTimeout) {
+        this.objectMapper = objectMapper;
+        this.fxApiUrl = fxApiUrl;
+        this.readTimeout = readTimeout;
+        // Shared by all requests, so connections to the provider are kept alive and reused across refreshes
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .build();
+    }
+    
+    @Override
+    public CompletableFuture<Map<String, BigDecimal>> fetchRates(String baseCurrency) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(fxApiUrl + baseCurrency))
+                .timeout(readTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> parseRates(baseCurrency, response));
+    }
+    
+    private Map<String, BigDecimal> parseRates(String baseCurrency, HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("FX provider returned status " + response.statusCode() 
+                    + " for base " + baseCurrency);
+        }
+        
+        JsonNode rates;
+        try {
+            // Read as BigDecimal, so a rate never passes through a double
+            rates = objectMapper.reader()
+                    .with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                    .readTree(response.body())
+                    .path("rates");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid FX provider response for base " + baseCurrency, e);
+        }
+        
+        Map<String, BigDecimal> supportedRates = new HashMap<>();
+        for (Account.Currency quote : Account.Currency.values()) {
+            JsonNode rate = rates.get(quote.name());
+            if (rate != null && rate.isNumber() && !quote.name().equals(baseCurrency)) {
+                supportedRates.put(quote.name(), rate.decimalValue());
+            }
+        }
+        
+        if (supportedRates.isEmpty()) {
+            throw new IllegalStateException("No supported rates in FX response for base " + baseCurrency);
+        }
+        return supportedRates;
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        httpClient.close();
+    }
+}
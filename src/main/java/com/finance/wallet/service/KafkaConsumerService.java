@@ -1,18 +1,30 @@
 package com.finance.wallet.service;
 
 import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.Money;
 import com.finance.wallet.entity.Transaction;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 @Service
 @RequiredArgsConstructor
@@ -22,115 +34,307 @@ public class KafkaConsumerService {
     private final TransactionService transactionService;
     private final AccountService accountService;
     private final UserService userService;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final KeyOrderedExecutor keyOrderedExecutor;
     private final FxRateService fxRateService;
+    private final TransactionStatusPublisher transactionStatusPublisher;
+    private final KafkaProducerService kafkaProducerService;
     
-    @KafkaListener(topics = "${wallet.kafka.topics.transactions}", groupId = "${spring.kafka.consumer.group-id}")
-    @Transactional
+    @Value("${wallet.kafka.consumer.key-ordered.retry-backoff:1s}")
+    private Duration laneRetryBackoff;
+    
+    @Value("${wallet.kafka.consumer.key-ordered.max-attempts:10}")
+    private int laneMaxAttempts;
+    
+    @KafkaListener(id = "wallet-txn-listener",
+                   topics = "${wallet.kafka.topics.transactions}", groupId = "${spring.kafka.consumer.group-id}",
+                   autoStartup = "#{'${wallet.kafka.consumer.mode:single}' == 'single'}")
     public void processTransaction(@Payload KafkaProducerService.TransactionMessage message,
                                   @Header(KafkaHeaders.RECEIVED_KEY) String key,
                                   Acknowledgment acknowledgment) {
         
         log.info("Processing transaction message with ID: {}", message.id);
         
-        try {
-            Transaction.TransactionType type = Transaction.TransactionType.valueOf(message.type);
-            Account.Currency currency = Account.Currency.valueOf(message.currency);
-            BigDecimal amount = new BigDecimal(message.amount);
+        handleTransaction(message);
+        acknowledgment.acknowledge();
+    }
+    
+    @KafkaListener(id = "wallet-txn-parallel-listener",
+                   topics = "${wallet.kafka.topics.transactions}", groupId = "${spring.kafka.consumer.group-id}",
+                   containerFactory = "keyOrderedKafkaListenerContainerFactory",
+                   autoStartup = "#{'${wallet.kafka.consumer.mode:single}' == 'parallel'}")
+    public void processTransactionInUserLane(@Payload KafkaProducerService.TransactionMessage message,
+                                             Acknowledgment acknowledgment) {
+        
+        log.debug("Dispatching transaction message with ID: {} to lane of user {}", message.id, message.userId);
+        
+        keyOrderedExecutor.submit(String.valueOf(message.userId), () -> {
+            log.info("Processing transaction message with ID: {}", message.id);
             
-            switch (type) {
-                case DEPOSIT:
-                    processDeposit(message.userId, currency, amount, message.id);
-                    break;
-                case WITHDRAWAL:
-                    processWithdrawal(message.userId, currency, amount, message.id);
-                    break;
-                case EXCHANGE:
-                    processExchange(message, message.id);
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unknown transaction type: " + type);
+            try {
+                processInLane(message);
+                acknowledgment.acknowledge();
+            } catch (InterruptedException e) {
+                // Shutting down: left unacknowledged, the record is redelivered to whoever takes the partition
+                Thread.currentThread().interrupt();
+                log.warn("Stopped retrying transaction {}, it will be redelivered", message.id);
+            }
+        });
+    }
+    
+    // Business failures are recorded as FAILED by handleTransaction; anything escaping it means the status was not
+    // written, so the lane retries while later messages of the user wait. After laneMaxAttempts the message goes to
+    // the dead-letter topic instead, so one message that can never be written does not stall its partition for good
+    private void processInLane(KafkaProducerService.TransactionMessage message) throws InterruptedException {
+        for (int attempt = 1; attempt <= laneMaxAttempts; attempt++) {
+            try {
+                handleTransaction(message);
+                return;
+            } catch (Exception e) {
+                log.error("Transaction {} could not be processed (attempt {} of {})",
+                        message.id, attempt, laneMaxAttempts, e);
             }
             
-            transactionService.updateTransactionStatus(message.id,
-                    Transaction.TransactionStatus.COMPLETED, null);
+            if (attempt < laneMaxAttempts) {
+                keyOrderedExecutor.backOff(laneRetryBackoff);
+            }
+        }
+        
+        while (true) {
+            try {
+                kafkaProducerService.sendToDeadLetter(String.valueOf(message.userId), message).get();
+                log.error("Transaction {} sent to the dead-letter topic after {} attempts",
+                        message.id, laneMaxAttempts);
+                return;
+            } catch (ExecutionException e) {
+                log.error("Failed to dead-letter transaction {}, retrying in {}", message.id, laneRetryBackoff, e);
+            }
+            keyOrderedExecutor.backOff(laneRetryBackoff);
+        }
+    }
+    
+    private void handleTransaction(KafkaProducerService.TransactionMessage message) {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                if (claim(message)) {
+                    applyTransaction(message);
+                    transactionService.updateTransactionStatus(message.id,
+                            Transaction.TransactionStatus.COMPLETED, null);
+                }
+            });
             
-            acknowledgment.acknowledge();
             log.info("Successfully processed transaction: {}", message.id);
             
         } catch (Exception e) {
             log.error("Failed to process transaction: {}", message.id, e);
             
-            transactionService.updateTransactionStatus(message.id,
-                    Transaction.TransactionStatus.FAILED, e.getMessage());
-            
-            acknowledgment.acknowledge();
+            // The message's work has been rolled back as a whole, so the FAILED mark is committed on its own
+            TransactionTemplate failure = new TransactionTemplate(transactionManager);
+            failure.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            failure.executeWithoutResult(status -> transactionService.updateTransactionStatus(message.id,
+                    Transaction.TransactionStatus.FAILED, e.getMessage()));
         }
     }
     
-    private void processDeposit(Long userId, Account.Currency currency, BigDecimal amount, Long transactionId) {
-        log.info("Processing deposit: {} {} for user {}", amount, currency, userId);
+    @KafkaListener(id = "wallet-txn-batch-listener",
+                   topics = "${wallet.kafka.topics.transactions}", groupId = "${spring.kafka.consumer.group-id}",
+                   containerFactory = "batchKafkaListenerContainerFactory",
+                   autoStartup = "#{'${wallet.kafka.consumer.mode:single}' == 'batch'}")
+    public void processTransactionBatch(@Payload List<KafkaProducerService.TransactionMessage> messages,
+                                        Acknowledgment acknowledgment) {
         
-        transactionService.updateTransactionStatus(transactionId,
-                Transaction.TransactionStatus.PROCESSING, null);
+        log.info("Processing batch of {} transaction messages", messages.size());
         
-        var user = userService.getUserById(userId);
-        accountService.createAccount(user, currency);
-        accountService.updateBalance(userId, currency, amount);
+        // Keep each user's messages together and in poll order, so the user is loaded once per batch
+        Map<Long, List<KafkaProducerService.TransactionMessage>> messagesByUser = new LinkedHashMap<>();
+        for (KafkaProducerService.TransactionMessage message : messages) {
+            messagesByUser.computeIfAbsent(message.userId, userId -> new ArrayList<>()).add(message);
+        }
+        
+        TransactionTemplate batchTransaction = new TransactionTemplate(transactionManager);
+        batchTransaction.executeWithoutResult(status -> messagesByUser.values().forEach(this::processUserMessages));
         
-        log.info("Completed deposit: {} {} for user {}", amount, currency, userId);
+        acknowledgment.acknowledge();
+        log.info("Successfully processed batch of {} transaction messages", messages.size());
     }
     
-    private void processWithdrawal(Long userId, Account.Currency currency, BigDecimal amount, Long transactionId) {
-        log.info("Processing withdrawal: {} {} for user {}", amount, currency, userId);
+    private void processUserMessages(List<KafkaProducerService.TransactionMessage> messages) {
+        TransactionTemplate savepoint = new TransactionTemplate(transactionManager);
+        savepoint.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        DepositNetting netting = new DepositNetting();
         
-        transactionService.updateTransactionStatus(transactionId,
-                Transaction.TransactionStatus.PROCESSING, null);
-        
-        if (!accountService.hasValidBalance(userId, currency, amount)) {
-            throw new IllegalArgumentException("Insufficient balance for withdrawal");
+        for (KafkaProducerService.TransactionMessage message : messages) {
+            if (netting.add(message)) {
+                continue;
+            }
+            
+            // Pending credits are applied before anything that may read the balance, so per-user order is kept
+            applyNettedDeposits(savepoint, netting);
+            processInSavepoint(savepoint, message);
         }
         
-        accountService.updateBalance(userId, currency, amount.negate());
+        applyNettedDeposits(savepoint, netting);
+    }
+    
+    private void applyNettedDeposits(TransactionTemplate savepoint, DepositNetting netting) {
+        if (netting.isEmpty()) {
+            return;
+        }
         
-        log.info("Completed withdrawal: {} {} for user {}", amount, currency, userId);
+        for (DepositNetting.NettedDeposit deposit : netting.drain()) {
+            if (deposit.getMessages().size() == 1) {
+                processInSavepoint(savepoint, deposit.getMessages().get(0));
+                continue;
+            }
+            
+            try {
+                savepoint.executeWithoutResult(status -> {
+                    if (transactionService.claimForProcessing(deposit.getTransactionIds())
+                            != deposit.getTransactionIds().size()) {
+                        // Rolled back with the savepoint; one by one, the deposits already applied are skipped
+                        throw new IllegalStateException("Some of the netted deposits were already processed");
+                    }
+                    var user = userService.getUserById(deposit.getUserId());
+                    accountService.createAccount(user, deposit.getCurrency());
+                    accountService.updateBalance(deposit.getUserId(), deposit.getTotal());
+                    transactionService.completeTransactions(deposit.getUserId(),
+                            Transaction.TransactionType.DEPOSIT, deposit.getTransactionIds());
+                    status.flush();
+                });
+                log.info("Applied {} netted deposits totalling {} for user {}", deposit.getMessages().size(),
+                        deposit.getTotal(), deposit.getUserId());
+                
+            } catch (Exception e) {
+                log.warn("Netted deposits for user {} in {} failed, applying them one by one: {}",
+                        deposit.getUserId(), deposit.getCurrency(), e.getMessage());
+                
+                entityManager.clear();
+                deposit.getMessages().forEach(message -> processInSavepoint(savepoint, message));
+            }
+        }
     }
     
-    private void processExchange(KafkaProducerService.TransactionMessage message, Long transactionId) {
-        String description = message.description;
-        if (description == null || !description.contains("Exchange")) {
-            throw new IllegalArgumentException("Invalid exchange transaction description");
+    private void processInSavepoint(TransactionTemplate savepoint, KafkaProducerService.TransactionMessage message) {
+        try {
+            savepoint.executeWithoutResult(status -> {
+                if (claim(message)) {
+                    applyTransaction(message);
+                    transactionService.updateTransactionStatus(message.id,
+                            Transaction.TransactionStatus.COMPLETED, null);
+                    status.flush();
+                }
+            });
+            log.info("Successfully processed transaction: {}", message.id);
+            
+        } catch (Exception e) {
+            log.error("Failed to process transaction: {}", message.id, e);
+            
+            // Work of the failed message was rolled back to its savepoint, drop its entities from the session too
+            entityManager.clear();
+            markFailed(savepoint, message, e.getMessage());
         }
+    }
+    
+    private void markFailed(TransactionTemplate savepoint, KafkaProducerService.TransactionMessage message,
+                            String errorMessage) {
+        try {
+            savepoint.executeWithoutResult(status -> {
+                transactionService.updateTransactionStatus(message.id,
+                        Transaction.TransactionStatus.FAILED, errorMessage);
+                status.flush();
+            });
+        } catch (Exception e) {
+            log.error("Failed to mark transaction {} as FAILED", message.id, e);
+            entityManager.clear();
+            // Its COMPLETED mark was rolled back with the savepoint, so it must not be announced
+            transactionStatusPublisher.discardPending(message.id);
+        }
+    }
+    
+    // Moves the transaction to PROCESSING before any balance is touched; false for a redelivered message
+    private boolean claim(KafkaProducerService.TransactionMessage message) {
+        if (transactionService.claimForProcessing(List.of(message.id)) == 1) {
+            return true;
+        }
+        log.info("Skipping transaction {}: it is no longer PENDING, its message was already processed", message.id);
+        return false;
+    }
+    
+    private void applyTransaction(KafkaProducerService.TransactionMessage message) {
+        Money amount = Money.ofMicros(message.amountMicros, message.currency);
         
-        String[] parts = description.split(" ");
-        if (parts.length < 4) {
-            throw new IllegalArgumentException("Invalid exchange transaction format");
+        switch (message.type) {
+            case DEPOSIT:
+                processDeposit(message.userId, amount);
+                break;
+            case WITHDRAWAL:
+                processWithdrawal(message.userId, amount);
+                break;
+            case EXCHANGE:
+                processExchange(message, amount);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown transaction type: " + message.type);
         }
+    }
+    
+    private void processDeposit(Long userId, Money amount) {
+        log.info("Processing deposit: {} for user {}", amount, userId);
         
-        Account.Currency fromCurrency = Account.Currency.valueOf(parts[1]);
-        Account.Currency toCurrency = Account.Currency.valueOf(parts[3].replace(":", ""));
-        BigDecimal fromAmount = new BigDecimal(message.amount);
+        var user = userService.getUserById(userId);
+        accountService.createAccount(user, amount.getCurrency());
+        accountService.updateBalance(userId, amount);
         
-        log.info("Processing exchange: {} {} to {} for user {}", 
-                fromAmount, fromCurrency, toCurrency, message.userId);
+        log.info("Completed deposit: {} for user {}", amount, userId);
+    }
+    
+    private void processWithdrawal(Long userId, Money amount) {
+        log.info("Processing withdrawal: {} for user {}", amount, userId);
         
-        transactionService.updateTransactionStatus(transactionId,
-                Transaction.TransactionStatus.PROCESSING, null);
+        accountService.updateBalance(userId, amount.negate());
         
-        if (!accountService.hasValidBalance(message.userId, fromCurrency, fromAmount)) {
-            throw new IllegalArgumentException("Insufficient balance for exchange");
-        }
+        log.info("Completed withdrawal: {} for user {}", amount, userId);
+    }
+    
+    private void processExchange(KafkaProducerService.TransactionMessage message, Money fromAmount) {
+        Account.Currency toCurrency = message.toCurrency != null
+                ? message.toCurrency
+                : parseLegacyTargetCurrency(message.description);
         
-        BigDecimal exchangeRate = fxRateService.getExchangeRate(fromCurrency.name(), toCurrency.name());
-        BigDecimal toAmount = fromAmount.multiply(exchangeRate);
+        log.info("Processing exchange: {} to {} for user {}", 
+                fromAmount, toCurrency, message.userId);
         
-        var user = userService.getUserById(message.userId);
-        accountService.createAccount(user, fromCurrency);
-        accountService.createAccount(user, toCurrency);
+        BigDecimal rate;
+        Money toAmount;
+        if (message.toAmountMicros != null) {
+            // Settled at the rate locked by the quote when the exchange was requested
+            rate = message.quotedRate;
+            toAmount = Money.ofMicros(message.toAmountMicros, toCurrency);
+        } else {
+            // Requested before exchanges were quoted: settled at the current rate, as it was then
+            rate = fxRateService.getExchangeRate(fromAmount.getCurrency(), toCurrency);
+            toAmount = fromAmount.convert(toCurrency, rate, RoundingMode.HALF_UP);
+            transactionService.recordExchangeSettlement(message.id, toCurrency, rate, toAmount.toBigDecimal());
+        }
         
-        accountService.updateBalance(message.userId, fromCurrency, fromAmount.negate());
-        accountService.updateBalance(message.userId, toCurrency, toAmount);
+        accountService.exchange(message.userId, fromAmount, toAmount);
         
-        log.info("Completed exchange: {} {} to {} {} for user {} (rate: {})", 
-                fromAmount, fromCurrency, toAmount, toCurrency, message.userId, exchangeRate);
+        log.info("Completed exchange: {} to {} for user {} (rate: {})", 
+                fromAmount, toAmount, message.userId, rate);
+    }
+    
+    // Messages produced before the target currency was a field only name it in the description,
+    // as in "Exchange USD to TRY: ..."
+    private Account.Currency parseLegacyTargetCurrency(String description) {
+        if (description == null || !description.contains("Exchange")) {
+            throw new IllegalArgumentException("Exchange transaction has no target currency");
+        }
+        
+        String[] parts = description.split(" ");
+        if (parts.length < 4) {
+            throw new IllegalArgumentException("Exchange transaction has no target currency");
+        }
+        return Account.Currency.valueOf(parts[3].replace(":", ""));
     }
 } 
\ No newline at end of file
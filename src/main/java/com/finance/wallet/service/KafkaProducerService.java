@@ -1,18 +1,21 @@
 package com.finance.wallet.service;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.Money;
 import com.finance.wallet.entity.Transaction;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
-@Slf4j
 public class KafkaProducerService {
     
     private final KafkaTemplate<String, Object> kafkaTemplate;
@@ -20,35 +23,40 @@ public class KafkaProducerService {
     @Value("${wallet.kafka.topics.transactions}")
     private String transactionTopic;
     
-    public void sendTransactionMessage(Transaction transaction) {
-        try {
-            TransactionMessage message = TransactionMessage.fromEntity(transaction);
-            
-            CompletableFuture<SendResult<String, Object>> future = 
-                    kafkaTemplate.send(transactionTopic, transaction.getId().toString(), message);
-            
-            future.whenComplete((result, exception) -> {
-                if (exception == null) {
-                    log.info("Successfully sent transaction message for ID: {} to topic: {}", 
-                            transaction.getId(), transactionTopic);
-                } else {
-                    log.error("Failed to send transaction message for ID: {} to topic: {}", 
-                            transaction.getId(), transactionTopic, exception);
-                }
-            });
-            
-        } catch (Exception e) {
-            log.error("Error sending transaction message for ID: {}", transaction.getId(), e);
-        }
+    @Value("${wallet.kafka.topics.dead-letter:wallet.txn.DLT}")
+    private String deadLetterTopic;
+    
+    public CompletableFuture<SendResult<String, Object>> send(String key, TransactionMessage message) {
+        return kafkaTemplate.send(transactionTopic, key, message);
+    }
+    
+    public CompletableFuture<SendResult<String, Object>> sendToDeadLetter(String key, TransactionMessage message) {
+        return kafkaTemplate.send(deadLetterTopic, key, message);
     }
     
+    public void flush() {
+        kafkaTemplate.flush();
+    }
+    
+    /**
+     * Carries the transaction in the form the consumer applies it: enums and micro-unit amounts, so nothing is parsed
+     * again per message. In JSON the amounts keep their decimal {@code amount}/{@code toAmount} properties, which is
+     * what producers still on the JSON format and outbox rows written before this change contain.
+     */
     public static class TransactionMessage {
         public Long id;
         public Long userId;
-        public String type;
-        public String currency;
-        public String amount;
-        public String status;
+        public Transaction.TransactionType type;
+        public Account.Currency currency;
+        // Micro-units of currency, see Money
+        @JsonIgnore
+        public long amountMicros;
+        public Account.Currency toCurrency;
+        public BigDecimal quotedRate;
+        // Micro-units of toCurrency
+        @JsonIgnore
+        public Long toAmountMicros;
+        public Transaction.TransactionStatus status;
         public String description;
         public String idempotencyKey;
         public String externalReference;
@@ -57,14 +65,38 @@ public class KafkaProducerService {
             TransactionMessage message = new TransactionMessage();
             message.id = transaction.getId();
             message.userId = transaction.getUser().getId();
-            message.type = transaction.getType().name();
-            message.currency = transaction.getCurrency().name();
-            message.amount = transaction.getAmount().toString();
-            message.status = transaction.getStatus().name();
+            message.type = transaction.getType();
+            message.currency = transaction.getCurrency();
+            message.amountMicros = toMicros(transaction.getAmount());
+            message.toCurrency = transaction.getToCurrency();
+            message.quotedRate = transaction.getQuotedRate();
+            message.toAmountMicros = transaction.getToAmount() != null ? toMicros(transaction.getToAmount()) : null;
+            message.status = transaction.getStatus();
             message.description = transaction.getDescription();
             message.idempotencyKey = transaction.getIdempotencyKey();
             message.externalReference = transaction.getExternalReference();
             return message;
         }
+        
+        public BigDecimal getAmount() {
+            return BigDecimal.valueOf(amountMicros, Money.SCALE);
+        }
+        
+        public void setAmount(BigDecimal amount) {
+            amountMicros = toMicros(amount);
+        }
+        
+        public BigDecimal getToAmount() {
+            return toAmountMicros != null ? BigDecimal.valueOf(toAmountMicros, Money.SCALE) : null;
+        }
+        
+        public void setToAmount(BigDecimal toAmount) {
+            toAmountMicros = toAmount != null ? toMicros(toAmount) : null;
+        }
+        
+        // Amounts are DECIMAL(18,6), so this only throws for a message that was not written from a transaction row
+        private static long toMicros(BigDecimal amount) {
+            return amount.setScale(Money.SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.finance.wallet.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@Slf4j
+public class KeyOrderedExecutor implements DisposableBean {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentMap<String, CompletableFuture<Void>> lanes = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final Duration shutdownTimeout;
+
+    public KeyOrderedExecutor(
+            @Value("${wallet.kafka.consumer.key-ordered.max-concurrency:10}") int maxConcurrency,
+            @Value("${wallet.kafka.consumer.key-ordered.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        this.permits = new Semaphore(maxConcurrency);
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    // Tasks with the same key run one after another in submission order, tasks with different keys run concurrently
+    public CompletableFuture<Void> submit(String key, Runnable task) {
+        CompletableFuture<Void> lane = lanes.compute(key, (laneKey, tail) ->
+                (tail == null ? CompletableFuture.<Void>completedFuture(null) : tail.exceptionally(e -> null))
+                        .thenRunAsync(() -> runWithPermit(task), executor));
+
+        lane.whenComplete((result, e) -> lanes.remove(key, lane));
+        return lane;
+    }
+
+    public int activeLanes() {
+        return lanes.size();
+    }
+
+    private void runWithPermit(Runnable task) {
+        // Bounds how many lanes hit the database at once, so the connection pool is not oversubscribed
+        permits.acquireUninterruptibly();
+        try {
+            task.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Called by a task that waits before retrying: the permit is given up for the pause, so a lane backing off does not
+    // keep the other lanes from the database. Only valid on a thread that runs a task of this executor
+    public void backOff(Duration backoff) throws InterruptedException {
+        permits.release();
+        try {
+            Thread.sleep(backoff);
+        } finally {
+            permits.acquireUninterruptibly();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        log.info("Waiting for {} key-ordered lanes to finish", lanes.size());
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            // Interrupts lanes still retrying a record; it stays unacknowledged and is redelivered
+            log.warn("Interrupting {} key-ordered lanes still running after {}", lanes.size(), shutdownTimeout);
+            executor.shutdownNow();
+        }
+    }
+}
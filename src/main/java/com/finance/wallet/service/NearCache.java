@@ -0,0 +1,50 @@
+package com.finance.wallet.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache in front of a slower lookup. Entries expire after {@code ttl} even if no invalidation
+ * arrives, and the least recently used ones are dropped beyond {@code maxSize}. Invalidations from other nodes come
+ * through {@link NearCacheInvalidator}, which addresses the cache by name and the entry by its key as a string.
+ */
+public class NearCache<K, V> {
+    
+    private final String name;
+    private final Cache<K, V> cache;
+    private final Function<String, K> keyParser;
+    
+    public NearCache(String name, long maxSize, Duration ttl, Function<String, K> keyParser) {
+        this.name = name;
+        this.keyParser = keyParser;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+    
+    // Concurrent misses for a key share one load; a null result is returned but not cached
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        return cache.get(key, loader);
+    }
+    
+    public void invalidateLocally(K key) {
+        cache.invalidate(key);
+    }
+    
+    void invalidateSerializedKey(String key) {
+        cache.invalidate(keyParser.apply(key));
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public Cache<K, V> getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,75 @@
+package com.finance.wallet.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the near caches of all nodes coherent: an invalidation is applied locally and published on a Redis channel
+ * as {@code <cache name>:<key>}, and every node drops the entry when the message arrives. Delivery is best effort,
+ * so near cache TTLs bound how long a missed message can leave an entry stale.
+ */
+@Component
+@Slf4j
+public class NearCacheInvalidator implements MessageListener {
+    
+    public static final String CHANNEL = "wallet.near-cache.invalidations";
+    
+    private final RedisTemplate<String, String> redisTemplate;
+    private final Map<String, NearCache<?, ?>> cachesByName;
+    
+    public NearCacheInvalidator(RedisTemplate<String, String> redisTemplate, List<NearCache<?, ?>> caches) {
+        this.redisTemplate = redisTemplate;
+        this.cachesByName = caches.stream().collect(Collectors.toMap(NearCache::getName, Function.identity()));
+    }
+    
+    public <K> void invalidate(NearCache<K, ?> cache, K key) {
+        cache.invalidateLocally(key);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, cache.getName() + ":" + key);
+        } catch (Exception e) {
+            log.warn("Failed to publish invalidation of {} in near cache {}: {}", key, cache.getName(), e.getMessage());
+        }
+    }
+    
+    // Other nodes must not reload the entry before the change is visible in the database
+    public <K> void invalidateAfterCommit(NearCache<K, ?> cache, K key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(cache, key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(cache, key);
+            }
+        });
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        NearCache<?, ?> cache = separator > 0 ? cachesByName.get(body.substring(0, separator)) : null;
+        if (cache == null) {
+            log.warn("Ignoring near cache invalidation for unknown cache: {}", body);
+            return;
+        }
+        
+        try {
+            cache.invalidateSerializedKey(body.substring(separator + 1));
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed near cache invalidation: {}", body);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.finance.wallet.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.wallet.entity.OutboxMessage;
+import com.finance.wallet.entity.Transaction;
+import com.finance.wallet.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+    
+    private final OutboxRepository outboxRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    
+    @Value("${wallet.outbox.relay.enabled:true}")
+    private boolean relayEnabled;
+    
+    @Value("${wallet.outbox.relay.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${wallet.outbox.relay.max-rows-per-key:20}")
+    private int maxRowsPerKey;
+    
+    @Value("${wallet.outbox.relay.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+    
+    // Written in the caller's transaction, so the message exists if and only if the transaction row does
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Transaction transaction) {
+        outboxRepository.save(toOutboxMessage(transaction));
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(List<Transaction> transactions) {
+        outboxRepository.insertAll(transactions.stream().map(this::toOutboxMessage).toList());
+    }
+    
+    @Scheduled(fixedDelayString = "${wallet.outbox.relay.poll-interval-ms:100}")
+    public void relayPendingMessages() {
+        if (!relayEnabled) {
+            return;
+        }
+        
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Integer relayed;
+        do {
+            // A batch can come back short because of the per-key cap while more rows are pending, so keep going until
+            // a batch relays nothing
+            relayed = transactionTemplate.execute(status -> relayBatch());
+        } while (relayed != null && relayed > 0);
+    }
+    
+    int relayBatch() {
+        List<OutboxMessage> batch = outboxRepository.lockNextBatch(batchSize, maxRowsPerKey);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        
+        Map<String, Deque<OutboxMessage>> pendingByKey = new LinkedHashMap<>();
+        for (OutboxMessage outboxMessage : batch) {
+            pendingByKey.computeIfAbsent(outboxMessage.getMessageKey(), key -> new ArrayDeque<>()).add(outboxMessage);
+        }
+        
+        List<Long> relayedIds = new ArrayList<>(batch.size());
+        boolean interrupted = false;
+        while (!pendingByKey.isEmpty() && !interrupted) {
+            // Each wave sends the oldest pending row of every key, all before the first ack is awaited: a batch costs
+            // one round trip per row of its busiest key (at most max-rows-per-key), and a key's next row only goes out once the previous is acked
+            List<OutboxMessage> wave = new ArrayList<>(pendingByKey.size());
+            List<CompletableFuture<?>> sends = new ArrayList<>(pendingByKey.size());
+            for (Deque<OutboxMessage> rows : pendingByKey.values()) {
+                wave.add(rows.peekFirst());
+                sends.add(send(rows.peekFirst()));
+            }
+            kafkaProducerService.flush();
+            
+            for (int i = 0; i < wave.size(); i++) {
+                OutboxMessage outboxMessage = wave.get(i);
+                Deque<OutboxMessage> rows = pendingByKey.get(outboxMessage.getMessageKey());
+                try {
+                    sends.get(i).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                    relayedIds.add(outboxMessage.getId());
+                    rows.removeFirst();
+                    if (rows.isEmpty()) {
+                        pendingByKey.remove(outboxMessage.getMessageKey());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    interrupted = true;
+                    break;
+                } catch (ExecutionException | TimeoutException e) {
+                    // This row and the key's later rows stay in the outbox, so the key is retried in order next run
+                    log.warn("Failed to relay outbox message {} for transaction {}, holding back {} more for key {}",
+                            outboxMessage.getId(), outboxMessage.getTransactionId(), rows.size() - 1,
+                            outboxMessage.getMessageKey(), e);
+                    pendingByKey.remove(outboxMessage.getMessageKey());
+                }
+            }
+        }
+        
+        if (!relayedIds.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(relayedIds);
+        }
+        
+        log.debug("Relayed {} of {} outbox messages", relayedIds.size(), batch.size());
+        return relayedIds.size();
+    }
+    
+    private CompletableFuture<?> send(OutboxMessage outboxMessage) {
+        try {
+            KafkaProducerService.TransactionMessage message = objectMapper.readValue(outboxMessage.getPayload(),
+                    KafkaProducerService.TransactionMessage.class);
+            return kafkaProducerService.send(outboxMessage.getMessageKey(), message);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    private OutboxMessage toOutboxMessage(Transaction transaction) {
+        KafkaProducerService.TransactionMessage message = KafkaProducerService.TransactionMessage.fromEntity(transaction);
+        
+        return OutboxMessage.builder()
+                .transactionId(transaction.getId())
+                .messageKey(message.userId.toString())
+                .payload(writePayload(message))
+                .build();
+    }
+    
+    private String writePayload(KafkaProducerService.TransactionMessage message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize transaction message: " + message.id, e);
+        }
+    }
+}
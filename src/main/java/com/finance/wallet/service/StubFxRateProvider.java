@@ -0,0 +1,27 @@
+package com.finance.wallet.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Serves the configured fallback rates against the pivot currency
+@Component
+@ConditionalOnProperty(name = "wallet.fx.provider", havingValue = "stub")
+@RequiredArgsConstructor
+public class StubFxRateProvider implements FxRateProvider {
+    
+    private final CurrencyRegistry currencyRegistry;
+    
+    @Override
+    public CompletableFuture<Map<String, BigDecimal>> fetchRates(String baseCurrency) {
+        if (!currencyRegistry.getPivot().name().equals(baseCurrency)) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("No stub FX rates for base " + baseCurrency));
+        }
+        return CompletableFuture.completedFuture(currencyRegistry.getFallbackPivotRates());
+    }
+}
@@ -0,0 +1,131 @@
+package com.finance.wallet.service;
+
+import com.finance.wallet.entity.Account;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static com.finance.wallet.service.TransactionMessageSerializer.CURRENCY_BYTES;
+import static com.finance.wallet.service.TransactionMessageSerializer.HAS_DESCRIPTION;
+import static com.finance.wallet.service.TransactionMessageSerializer.HAS_EXTERNAL_REFERENCE;
+import static com.finance.wallet.service.TransactionMessageSerializer.HAS_ID;
+import static com.finance.wallet.service.TransactionMessageSerializer.HAS_IDEMPOTENCY_KEY;
+import static com.finance.wallet.service.TransactionMessageSerializer.HAS_QUOTED_RATE;
+import static com.finance.wallet.service.TransactionMessageSerializer.HAS_TO_AMOUNT;
+import static com.finance.wallet.service.TransactionMessageSerializer.HAS_TO_CURRENCY;
+import static com.finance.wallet.service.TransactionMessageSerializer.MAGIC;
+import static com.finance.wallet.service.TransactionMessageSerializer.STATUS_IDS;
+import static com.finance.wallet.service.TransactionMessageSerializer.TYPE_IDS;
+import static com.finance.wallet.service.TransactionMessageSerializer.VERSION;
+
+/**
+ * Reads messages written by {@link TransactionMessageSerializer}. Records that do not start with the magic byte
+ * are JSON, written by producers that have not switched to the binary format yet.
+ */
+public class TransactionMessageDeserializer implements Deserializer<KafkaProducerService.TransactionMessage> {
+    
+    // Versions 1 and 2 wrote enum ordinals; these are the currencies in the order they had then
+    private static final Account.Currency[] LEGACY_CURRENCIES = {
+            Account.Currency.USD, Account.Currency.TRY, Account.Currency.EUR, Account.Currency.GBP,
+            Account.Currency.CHF, Account.Currency.JPY, Account.Currency.CAD, Account.Currency.AUD
+    };
+    
+    private final JsonDeserializer<KafkaProducerService.TransactionMessage> jsonDeserializer =
+            new JsonDeserializer<>(KafkaProducerService.TransactionMessage.class, false);
+    
+    @Override
+    public KafkaProducerService.TransactionMessage deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (data[0] != MAGIC) {
+            return jsonDeserializer.deserialize(topic, data);
+        }
+        
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data, 1, data.length - 1);
+            byte version = buffer.get();
+            if (version < 1 || version > VERSION) {
+                throw new SerializationException("Unsupported transaction message version: " + version);
+            }
+            int flags = buffer.get();
+            
+            KafkaProducerService.TransactionMessage message = new KafkaProducerService.TransactionMessage();
+            message.id = (flags & HAS_ID) != 0 ? buffer.getLong() : null;
+            message.userId = buffer.getLong();
+            if (version == VERSION) {
+                readCurrent(buffer, flags, message);
+            } else {
+                readLegacy(buffer, flags, message);
+            }
+            return message;
+            
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                 | ArithmeticException e) {
+            throw new SerializationException("Malformed transaction message", e);
+        }
+    }
+    
+    private static void readCurrent(ByteBuffer buffer, int flags, KafkaProducerService.TransactionMessage message) {
+        message.type = TYPE_IDS[buffer.get()];
+        message.status = STATUS_IDS[buffer.get()];
+        message.currency = getCurrency(buffer);
+        message.amountMicros = buffer.getLong();
+        readStrings(buffer, flags, message);
+        message.toCurrency = (flags & HAS_TO_CURRENCY) != 0 ? getCurrency(buffer) : null;
+        if ((flags & HAS_QUOTED_RATE) != 0) {
+            int scale = buffer.get();
+            byte[] unscaled = new byte[buffer.get() & 0xFF];
+            buffer.get(unscaled);
+            message.quotedRate = new BigDecimal(new BigInteger(unscaled), scale);
+        }
+        message.toAmountMicros = (flags & HAS_TO_AMOUNT) != 0 ? buffer.getLong() : null;
+    }
+    
+    private static void readLegacy(ByteBuffer buffer, int flags, KafkaProducerService.TransactionMessage message) {
+        message.type = TYPE_IDS[buffer.get()];
+        message.currency = LEGACY_CURRENCIES[buffer.get()];
+        message.status = STATUS_IDS[buffer.get()];
+        message.setAmount(getDecimal(buffer));
+        readStrings(buffer, flags, message);
+        message.toCurrency = (flags & HAS_TO_CURRENCY) != 0 ? LEGACY_CURRENCIES[buffer.get()] : null;
+        message.quotedRate = (flags & HAS_QUOTED_RATE) != 0 ? getDecimal(buffer) : null;
+        message.setToAmount((flags & HAS_TO_AMOUNT) != 0 ? getDecimal(buffer) : null);
+    }
+    
+    private static void readStrings(ByteBuffer buffer, int flags, KafkaProducerService.TransactionMessage message) {
+        message.description = (flags & HAS_DESCRIPTION) != 0 ? getString(buffer) : null;
+        message.idempotencyKey = (flags & HAS_IDEMPOTENCY_KEY) != 0 ? getString(buffer) : null;
+        message.externalReference = (flags & HAS_EXTERNAL_REFERENCE) != 0 ? getString(buffer) : null;
+    }
+    
+    // An unknown code fails with IllegalArgumentException rather than mapping to the wrong currency
+    private static Account.Currency getCurrency(ByteBuffer buffer) {
+        String code = new String(buffer.array(), buffer.position(), CURRENCY_BYTES, StandardCharsets.US_ASCII);
+        buffer.position(buffer.position() + CURRENCY_BYTES);
+        return Account.Currency.valueOf(code);
+    }
+    
+    private static BigDecimal getDecimal(ByteBuffer buffer) {
+        int scale = buffer.get();
+        return BigDecimal.valueOf(buffer.getLong(), scale);
+    }
+    
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+    
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
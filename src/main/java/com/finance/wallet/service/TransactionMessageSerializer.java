@@ -0,0 +1,167 @@
+package com.finance.wallet.service;
+
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.Transaction;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Writes {@link KafkaProducerService.TransactionMessage} in the versioned binary format read by
+ * {@link TransactionMessageDeserializer}. Setting {@value #FORMAT_CONFIG} to {@code json} in the producer
+ * properties switches back to JSON while consumers that only understand JSON are still running.
+ *
+ * <p>Layout of version 3: magic byte, version, presence flags, [id], userId, type and status (ids from
+ * {@link #TYPE_IDS} and {@link #STATUS_IDS}), currency (ISO code, three ASCII bytes), amount in micro-units, then the
+ * present optional strings as length-prefixed UTF-8, [toCurrency], [quotedRate as scale, length-prefixed unscaled
+ * value], [toAmount in micro-units]. Versions 1 and 2 wrote enum ordinals and decimal amounts; they are still read.
+ */
+public class TransactionMessageSerializer implements Serializer<KafkaProducerService.TransactionMessage> {
+    
+    public static final String FORMAT_CONFIG = "wallet.transaction-message.format";
+    
+    static final byte MAGIC = 0;
+    static final byte VERSION = 3;
+    
+    static final int HAS_ID = 1;
+    static final int HAS_DESCRIPTION = 1 << 1;
+    static final int HAS_IDEMPOTENCY_KEY = 1 << 2;
+    static final int HAS_EXTERNAL_REFERENCE = 1 << 3;
+    static final int HAS_TO_CURRENCY = 1 << 4;
+    static final int HAS_QUOTED_RATE = 1 << 5;
+    static final int HAS_TO_AMOUNT = 1 << 6;
+    
+    // Wire ids are positions in these arrays, so new constants are only ever appended
+    static final Transaction.TransactionType[] TYPE_IDS = {
+            Transaction.TransactionType.DEPOSIT,
+            Transaction.TransactionType.WITHDRAWAL,
+            Transaction.TransactionType.EXCHANGE
+    };
+    static final Transaction.TransactionStatus[] STATUS_IDS = {
+            Transaction.TransactionStatus.PENDING,
+            Transaction.TransactionStatus.PROCESSING,
+            Transaction.TransactionStatus.COMPLETED,
+            Transaction.TransactionStatus.FAILED,
+            Transaction.TransactionStatus.CANCELLED
+    };
+    
+    static final int CURRENCY_BYTES = 3;
+    
+    private Serializer<Object> jsonSerializer;
+    
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if ("json".equals(configs.get(FORMAT_CONFIG))) {
+            JsonSerializer<Object> serializer = new JsonSerializer<>();
+            serializer.setAddTypeInfo(false);
+            jsonSerializer = serializer;
+        }
+    }
+    
+    @Override
+    public byte[] serialize(String topic, KafkaProducerService.TransactionMessage message) {
+        if (message == null) {
+            return null;
+        }
+        if (jsonSerializer != null) {
+            return jsonSerializer.serialize(topic, message);
+        }
+        
+        try {
+            byte[] quotedRate = message.quotedRate != null
+                    ? message.quotedRate.unscaledValue().toByteArray()
+                    : null;
+            byte[] description = utf8(message.description);
+            byte[] idempotencyKey = utf8(message.idempotencyKey);
+            byte[] externalReference = utf8(message.externalReference);
+            
+            int flags = (message.id != null ? HAS_ID : 0)
+                    | (description != null ? HAS_DESCRIPTION : 0)
+                    | (idempotencyKey != null ? HAS_IDEMPOTENCY_KEY : 0)
+                    | (externalReference != null ? HAS_EXTERNAL_REFERENCE : 0)
+                    | (message.toCurrency != null ? HAS_TO_CURRENCY : 0)
+                    | (quotedRate != null ? HAS_QUOTED_RATE : 0)
+                    | (message.toAmountMicros != null ? HAS_TO_AMOUNT : 0);
+            
+            int size = 3 + (message.id != null ? Long.BYTES : 0) + Long.BYTES + 2 + CURRENCY_BYTES + Long.BYTES
+                    + sizeOf(description) + sizeOf(idempotencyKey) + sizeOf(externalReference)
+                    + (message.toCurrency != null ? CURRENCY_BYTES : 0)
+                    + (quotedRate != null ? 2 + quotedRate.length : 0)
+                    + (message.toAmountMicros != null ? Long.BYTES : 0);
+            
+            ByteBuffer buffer = ByteBuffer.allocate(size)
+                    .put(MAGIC)
+                    .put(VERSION)
+                    .put((byte) flags);
+            if (message.id != null) {
+                buffer.putLong(message.id);
+            }
+            buffer.putLong(message.userId)
+                    .put(idOf(TYPE_IDS, message.type))
+                    .put(idOf(STATUS_IDS, message.status));
+            putCurrency(buffer, message.currency);
+            buffer.putLong(message.amountMicros);
+            putString(buffer, description);
+            putString(buffer, idempotencyKey);
+            putString(buffer, externalReference);
+            if (message.toCurrency != null) {
+                putCurrency(buffer, message.toCurrency);
+            }
+            if (quotedRate != null) {
+                putRate(buffer, message.quotedRate.scale(), quotedRate);
+            }
+            if (message.toAmountMicros != null) {
+                buffer.putLong(message.toAmountMicros);
+            }
+            return buffer.array();
+            
+        } catch (RuntimeException e) {
+            throw new SerializationException("Failed to serialize transaction message: " + message.id, e);
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (jsonSerializer != null) {
+            jsonSerializer.close();
+        }
+    }
+    
+    private static byte idOf(Object[] ids, Object value) {
+        for (int id = 0; id < ids.length; id++) {
+            if (ids[id] == value) {
+                return (byte) id;
+            }
+        }
+        throw new SerializationException("No wire id for " + value);
+    }
+    
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+    
+    private static int sizeOf(byte[] value) {
+        return value != null ? Integer.BYTES + value.length : 0;
+    }
+    
+    private static void putCurrency(ByteBuffer buffer, Account.Currency currency) {
+        buffer.put(currency.name().getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    private static void putRate(ByteBuffer buffer, int scale, byte[] unscaled) {
+        if (scale != (byte) scale || unscaled.length > Byte.MAX_VALUE) {
+            throw new SerializationException("Rate does not fit the binary format");
+        }
+        buffer.put((byte) scale).put((byte) unscaled.length).put(unscaled);
+    }
+    
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value != null) {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+}
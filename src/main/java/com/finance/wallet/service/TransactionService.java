@@ -1,23 +1,49 @@
 package com.finance.wallet.service;
 
+import com.finance.wallet.dto.BatchTransactionItem;
+import com.finance.wallet.dto.BatchTransactionResponse;
 import com.finance.wallet.dto.DepositRequest;
 import com.finance.wallet.dto.ExchangeRequest;
+import com.finance.wallet.dto.TransactionHistoryFilter;
+import com.finance.wallet.dto.TransactionHistoryPage;
 import com.finance.wallet.dto.TransactionResponse;
+import com.finance.wallet.dto.TransactionStatusEvent;
+import com.finance.wallet.dto.TransactionStatusResponse;
 import com.finance.wallet.dto.WithdrawalRequest;
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.Money;
 import com.finance.wallet.entity.Transaction;
 import com.finance.wallet.entity.User;
 import com.finance.wallet.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -26,7 +52,17 @@ public class TransactionService {
     
     private final TransactionRepository transactionRepository;
     private final UserService userService;
-    private final KafkaProducerService kafkaProducerService;
+    private final OutboxService outboxService;
+    private final FxQuoteService fxQuoteService;
+    private final TransactionStatusPublisher transactionStatusPublisher;
+    
+    @Value("${wallet.batch.max-items:1000}")
+    private int maxBatchItems;
+    
+    @Value("${wallet.history.max-page-size:200}")
+    private int maxHistoryPageSize;
+    
+    private static final String QUOTE_STORE_UNAVAILABLE = "FX quotes are temporarily unavailable, retry this exchange";
     
     @Transactional
     public TransactionResponse createDepositTransaction(DepositRequest request, String idempotencyKey) {
@@ -54,7 +90,7 @@ public class TransactionService {
         Transaction savedTransaction = transactionRepository.save(transaction);
         log.info("Created deposit transaction: {} for user: {}", savedTransaction.getId(), user.getId());
         
-        kafkaProducerService.sendTransactionMessage(savedTransaction);
+        outboxService.enqueue(savedTransaction);
         
         return TransactionResponse.fromEntity(savedTransaction);
     }
@@ -85,7 +121,7 @@ public class TransactionService {
         Transaction savedTransaction = transactionRepository.save(transaction);
         log.info("Created withdrawal transaction: {} for user: {}", savedTransaction.getId(), user.getId());
         
-        kafkaProducerService.sendTransactionMessage(savedTransaction);
+        outboxService.enqueue(savedTransaction);
         
         return TransactionResponse.fromEntity(savedTransaction);
     }
@@ -105,16 +141,20 @@ public class TransactionService {
         }
         
         User user = userService.getUserById(request.getUserId());
+        Money fromAmount = Money.of(request.getAmount(), request.getFromCurrency());
+        BigDecimal quotedRate = fxQuoteService.redeemQuote(request.getQuoteId(), request.getUserId(),
+                request.getFromCurrency(), request.getToCurrency());
         
         Transaction transaction = Transaction.builder()
                 .user(user)
                 .type(Transaction.TransactionType.EXCHANGE)
                 .currency(request.getFromCurrency())
-                .amount(request.getAmount())
+                .toCurrency(request.getToCurrency())
+                .amount(fromAmount.toBigDecimal())
+                .quotedRate(quotedRate)
+                .toAmount(fromAmount.convert(request.getToCurrency(), quotedRate, RoundingMode.HALF_UP).toBigDecimal())
                 .status(Transaction.TransactionStatus.PENDING)
-                .description(String.format("Exchange %s to %s: %s", 
-                        request.getFromCurrency(), request.getToCurrency(), 
-                        request.getDescription() != null ? request.getDescription() : ""))
+                .description(request.getDescription())
                 .idempotencyKey(idempotencyKey)
                 .externalReference(generateReference())
                 .build();
@@ -122,23 +162,199 @@ public class TransactionService {
         Transaction savedTransaction = transactionRepository.save(transaction);
         log.info("Created exchange transaction: {} for user: {}", savedTransaction.getId(), user.getId());
         
-        kafkaProducerService.sendTransactionMessage(savedTransaction);
+        outboxService.enqueue(savedTransaction);
         
         return TransactionResponse.fromEntity(savedTransaction);
     }
     
+    /**
+     * Creates many transactions at once. Items are accepted or rejected one by one, with the reason in their result,
+     * while idempotency keys and users are looked up once for the whole batch and the accepted transactions and their
+     * outbox messages are each written in one JDBC batch.
+     */
+    @Transactional
+    public BatchTransactionResponse createTransactionBatch(List<BatchTransactionItem> items) {
+        if (items.size() > maxBatchItems) {
+            throw new IllegalArgumentException("A batch may contain at most " + maxBatchItems + " items");
+        }
+        
+        Set<String> keys = items.stream()
+                .map(BatchTransactionItem::getIdempotencyKey)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Transaction> existing = keys.isEmpty() ? Map.of() :
+                transactionRepository.findByIdempotencyKeyIn(keys).stream()
+                        .collect(Collectors.toMap(Transaction::getIdempotencyKey, Function.identity()));
+        Set<Long> userIds = userService.findExistingUserIds(items.stream()
+                .map(BatchTransactionItem::getUserId)
+                .collect(Collectors.toSet()));
+        
+        BatchTransactionResponse.ItemResult[] results = new BatchTransactionResponse.ItemResult[items.size()];
+        List<Transaction> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        Set<String> acceptedKeys = new HashSet<>();
+        boolean quoteStoreAvailable = true;
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransactionItem item = items.get(i);
+            String key = item.getIdempotencyKey();
+            if (key != null && existing.containsKey(key)) {
+                results[i] = itemResult(i, key, BatchTransactionResponse.Outcome.EXISTING, existing.get(key));
+                continue;
+            }
+            
+            try {
+                if (key != null && acceptedKeys.contains(key)) {
+                    throw new IllegalArgumentException("Idempotency key used by an earlier item: " + key);
+                }
+                if (!userIds.contains(item.getUserId())) {
+                    throw new IllegalArgumentException("User not found with id: " + item.getUserId());
+                }
+                if (item.getType() == Transaction.TransactionType.EXCHANGE && !quoteStoreAvailable) {
+                    throw new IllegalArgumentException(QUOTE_STORE_UNAVAILABLE);
+                }
+                accepted.add(buildBatchTransaction(item));
+                acceptedIndexes.add(i);
+                if (key != null) {
+                    acceptedKeys.add(key);
+                }
+            } catch (IllegalArgumentException e) {
+                results[i] = rejected(i, key, e.getMessage());
+            } catch (DataAccessException e) {
+                // Redeeming the quote failed in Redis: only this exchange is rejected, and the later ones are rejected
+                // without waiting on the store again. Quotes claimed for earlier items are released if the batch
+                // rolls back, or removed with it when it commits
+                log.warn("FX quote store failed for batch item {}, rejecting the remaining exchanges", i, e);
+                quoteStoreAvailable = false;
+                results[i] = rejected(i, key, QUOTE_STORE_UNAVAILABLE);
+            }
+        }
+        
+        transactionRepository.insertAll(accepted);
+        outboxService.enqueueAll(accepted);
+        for (int j = 0; j < accepted.size(); j++) {
+            int index = acceptedIndexes.get(j);
+            results[index] = itemResult(index, items.get(index).getIdempotencyKey(),
+                    BatchTransactionResponse.Outcome.CREATED, accepted.get(j));
+        }
+        
+        log.info("Created {} of {} batch transactions", accepted.size(), items.size());
+        return BatchTransactionResponse.builder()
+                .results(Arrays.asList(results))
+                .build();
+    }
+    
+    private Transaction buildBatchTransaction(BatchTransactionItem item) {
+        Money amount = Money.of(item.getAmount(), item.getCurrency());
+        Transaction.TransactionBuilder<?, ?> transaction = Transaction.builder()
+                // Only the id is written by the batch insert
+                .user(User.builder().id(item.getUserId()).build())
+                .type(item.getType())
+                .currency(item.getCurrency())
+                .amount(amount.toBigDecimal())
+                .status(Transaction.TransactionStatus.PENDING)
+                .description(item.getDescription())
+                .idempotencyKey(item.getIdempotencyKey())
+                .externalReference(generateReference());
+        
+        if (item.getType() == Transaction.TransactionType.EXCHANGE) {
+            if (item.getToCurrency() == null || item.getQuoteId() == null) {
+                throw new IllegalArgumentException("To currency and quote ID are required for an exchange");
+            }
+            BigDecimal quotedRate = fxQuoteService.redeemQuote(item.getQuoteId(), item.getUserId(),
+                    item.getCurrency(), item.getToCurrency());
+            transaction.toCurrency(item.getToCurrency())
+                    .quotedRate(quotedRate)
+                    .toAmount(amount.convert(item.getToCurrency(), quotedRate, RoundingMode.HALF_UP).toBigDecimal());
+        }
+        return transaction.build();
+    }
+    
+    private static BatchTransactionResponse.ItemResult rejected(int index, String idempotencyKey, String error) {
+        return BatchTransactionResponse.ItemResult.builder()
+                .index(index)
+                .idempotencyKey(idempotencyKey)
+                .outcome(BatchTransactionResponse.Outcome.REJECTED)
+                .error(error)
+                .build();
+    }
+    
+    private static BatchTransactionResponse.ItemResult itemResult(int index, String idempotencyKey,
+                                                                  BatchTransactionResponse.Outcome outcome,
+                                                                  Transaction transaction) {
+        return BatchTransactionResponse.ItemResult.builder()
+                .index(index)
+                .idempotencyKey(idempotencyKey)
+                .outcome(outcome)
+                .transaction(TransactionResponse.fromEntity(transaction))
+                .build();
+    }
+    
+    /**
+     * One page of the user's history, newest first. The cursor is the opaque {@code nextCursor} of the previous page;
+     * pages are addressed by the (createdAt, id) of their last row, so rows inserted meanwhile neither shift nor
+     * repeat later pages.
+     */
     @Transactional(readOnly = true)
-    public List<TransactionResponse> getTransactionsByUserId(Long userId) {
-        List<Transaction> transactions = transactionRepository.findByUserId(userId);
-        return transactions.stream()
-                .map(TransactionResponse::fromEntity)
-                .collect(Collectors.toList());
+    public TransactionHistoryPage getTransactionHistory(Long userId, TransactionHistoryFilter filter, String cursor,
+                                                        int limit) {
+        if (limit < 1 || limit > maxHistoryPageSize) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxHistoryPageSize);
+        }
+        HistoryPosition after = cursor != null ? HistoryPosition.decode(cursor) : HistoryPosition.START;
+        
+        // One extra row tells whether there is a next page
+        List<TransactionResponse> transactions = transactionRepository.findHistoryPage(userId,
+                types(filter), statuses(filter), from(filter), to(filter), after.createdAt(), after.id(),
+                PageRequest.ofSize(limit + 1));
+        
+        boolean hasMore = transactions.size() > limit;
+        List<TransactionResponse> page = hasMore ? transactions.subList(0, limit) : transactions;
+        return TransactionHistoryPage.builder()
+                .transactions(page)
+                .nextCursor(hasMore ? HistoryPosition.of(page.getLast()).encode() : null)
+                .build();
     }
     
+    // Hands the whole filtered history to the sink row by row, holding only the current row in memory
     @Transactional(readOnly = true)
-    public Optional<TransactionResponse> getLastTransactionByUserId(Long userId) {
-        return transactionRepository.findTopByUserIdOrderByCreatedAtDesc(userId)
-                .map(TransactionResponse::fromEntity);
+    public void exportTransactionHistory(Long userId, TransactionHistoryFilter filter,
+                                         Consumer<TransactionResponse> sink) {
+        try (Stream<TransactionResponse> transactions = transactionRepository.streamHistory(userId,
+                types(filter), statuses(filter), from(filter), to(filter))) {
+            transactions.forEach(sink);
+        }
+    }
+    
+    // Absent filters become bounds that match every row, so a single query shape serves all combinations
+    private static Set<Transaction.TransactionType> types(TransactionHistoryFilter filter) {
+        return filter.getType() != null
+                ? EnumSet.of(filter.getType()) : EnumSet.allOf(Transaction.TransactionType.class);
+    }
+    
+    private static Set<Transaction.TransactionStatus> statuses(TransactionHistoryFilter filter) {
+        return filter.getStatus() != null
+                ? EnumSet.of(filter.getStatus()) : EnumSet.allOf(Transaction.TransactionStatus.class);
+    }
+    
+    private static LocalDateTime from(TransactionHistoryFilter filter) {
+        return filter.getFrom() != null ? filter.getFrom() : HistoryPosition.MIN_CREATED_AT;
+    }
+    
+    private static LocalDateTime to(TransactionHistoryFilter filter) {
+        return filter.getTo() != null ? filter.getTo() : HistoryPosition.MAX_CREATED_AT;
+    }
+    
+    @Transactional(readOnly = true)
+    public Optional<TransactionStatusResponse> getTransactionStatus(Long userId) {
+        return transactionRepository.findLatestStatusByUserId(userId, PageRequest.ofSize(1)).stream()
+                .findFirst()
+                .map(latest -> TransactionStatusResponse.builder()
+                        .userId(userId)
+                        .lastTransactionStatus(latest.getStatus())
+                        .lastTransactionType(latest.getType().name())
+                        .errorMessage(latest.getErrorMessage())
+                        .lastUpdated(latest.getProcessedAt() != null ? latest.getProcessedAt() : latest.getCreatedAt())
+                        .build());
     }
     
     @Transactional
@@ -153,12 +369,86 @@ public class TransactionService {
         }
         
         Transaction savedTransaction = transactionRepository.save(transaction);
+        transactionStatusPublisher.publishAfterCommit(List.of(TransactionStatusEvent.fromEntity(savedTransaction)));
         log.info("Updated transaction {} status to {}", transactionId, status);
         
         return savedTransaction;
     }
     
+    /**
+     * Moves the given PENDING transactions to PROCESSING and returns how many were moved. The outbox delivers at least
+     * once, so a transaction that is no longer PENDING belongs to a message that has already been applied.
+     */
+    @Transactional
+    public int claimForProcessing(Collection<Long> transactionIds) {
+        return transactionRepository.updateStatusByIdsIfStatus(transactionIds,
+                Transaction.TransactionStatus.PENDING, Transaction.TransactionStatus.PROCESSING, LocalDateTime.now());
+    }
+    
+    // Rate and credited amount of an exchange that was settled at the current rate instead of a quoted one
+    @Transactional
+    public void recordExchangeSettlement(Long transactionId, Account.Currency toCurrency, BigDecimal rate,
+                                         BigDecimal toAmount) {
+        Transaction transaction = transactionRepository.findById(transactionId)
+                .orElseThrow(() -> new IllegalArgumentException("Transaction not found: " + transactionId));
+        
+        transaction.setToCurrency(toCurrency);
+        transaction.setQuotedRate(rate);
+        transaction.setToAmount(toAmount);
+        transactionRepository.save(transaction);
+    }
+    
+    @Transactional
+    public void completeTransactions(Long userId, Transaction.TransactionType type, List<Long> transactionIds) {
+        LocalDateTime processedAt = LocalDateTime.now();
+        int updated = transactionRepository.updateStatusByIds(transactionIds,
+                Transaction.TransactionStatus.COMPLETED, processedAt);
+        
+        if (updated != transactionIds.size()) {
+            throw new IllegalArgumentException("Transactions not found, expected " + transactionIds.size() +
+                    " but updated " + updated);
+        }
+        transactionStatusPublisher.publishAfterCommit(transactionIds.stream()
+                .map(id -> TransactionStatusEvent.builder()
+                        .transactionId(id)
+                        .userId(userId)
+                        .type(type)
+                        .status(Transaction.TransactionStatus.COMPLETED)
+                        .processedAt(processedAt)
+                        .build())
+                .toList());
+        
+        log.info("Updated {} transactions status to {}", updated, Transaction.TransactionStatus.COMPLETED);
+    }
+    
     private String generateReference() {
         return "TXN-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
     }
-} 
\ No newline at end of file
+    
+    private record HistoryPosition(LocalDateTime createdAt, long id) {
+        
+        static final LocalDateTime MIN_CREATED_AT = LocalDateTime.of(1970, 1, 1, 0, 0);
+        static final LocalDateTime MAX_CREATED_AT = LocalDateTime.of(9999, 12, 31, 0, 0);
+        static final HistoryPosition START = new HistoryPosition(MAX_CREATED_AT, Long.MAX_VALUE);
+        
+        static HistoryPosition of(TransactionResponse transaction) {
+            return new HistoryPosition(transaction.getCreatedAt(), transaction.getId());
+        }
+        
+        static HistoryPosition decode(String cursor) {
+            try {
+                String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = position.indexOf(',');
+                return new HistoryPosition(LocalDateTime.parse(position.substring(0, separator)),
+                        Long.parseLong(position.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+        
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((createdAt + "," + id).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
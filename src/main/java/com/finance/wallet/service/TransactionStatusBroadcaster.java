@@ -0,0 +1,158 @@
+package com.finance.wallet.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.wallet.dto.TransactionStatusEvent;
+import com.finance.wallet.repository.TransactionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pushes the status events published by {@link TransactionStatusPublisher} to the SSE subscribers connected to this
+ * node. A subscription covers either all transactions of a user or a given set of them; in the latter case it is
+ * completed once each of them has reached a final status. Events may repeat around subscription time, when the
+ * current statuses read from the database can cross a published event.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionStatusBroadcaster implements MessageListener {
+    
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${wallet.status-stream.timeout:5m}")
+    private Duration timeout;
+    
+    private final ConcurrentMap<Long, Set<Subscription>> subscriptionsByUser = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("wallet.status-stream.subscribers", this, TransactionStatusBroadcaster::getSubscriberCount)
+                .description("SSE status subscriptions open on this node")
+                .register(meterRegistry);
+    }
+    
+    public SseEmitter subscribe(Long userId, Set<Long> transactionIds) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscription subscription = new Subscription(userId, emitter, transactionIds);
+        
+        subscriptionsByUser.compute(userId, (id, subscriptions) -> {
+            Set<Subscription> updated = subscriptions != null ? subscriptions : ConcurrentHashMap.newKeySet();
+            updated.add(subscription);
+            return updated;
+        });
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onError(e -> remove(subscription));
+        
+        // Transitions committed before the subscription was registered are only in the database
+        if (!transactionIds.isEmpty()) {
+            transactionRepository.findStatusEventsByUserIdAndIds(userId, transactionIds)
+                    .forEach(event -> deliver(subscription, event));
+        }
+        return emitter;
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        TransactionStatusEvent event;
+        try {
+            event = objectMapper.readValue(message.getBody(), TransactionStatusEvent.class);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed transaction status event: {}", e.getMessage());
+            return;
+        }
+        
+        Set<Subscription> subscriptions = subscriptionsByUser.get(event.getUserId());
+        if (subscriptions != null) {
+            subscriptions.forEach(subscription -> deliver(subscription, event));
+        }
+    }
+    
+    // Keeps idle connections open through proxies and drops subscribers that went away
+    @Scheduled(fixedDelayString = "${wallet.status-stream.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        subscriptionsByUser.values().forEach(subscriptions -> subscriptions.forEach(subscription -> {
+            try {
+                subscription.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (Exception e) {
+                remove(subscription);
+            }
+        }));
+    }
+    
+    public int getSubscriberCount() {
+        return subscriptionsByUser.values().stream().mapToInt(Set::size).sum();
+    }
+    
+    private void deliver(Subscription subscription, TransactionStatusEvent event) {
+        if (!subscription.covers(event.getTransactionId())) {
+            return;
+        }
+        
+        try {
+            subscription.emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.getTransactionId()))
+                    .name("status")
+                    .data(event));
+        } catch (Exception e) {
+            log.debug("Dropping status subscription of user {}: {}", subscription.userId, e.getMessage());
+            remove(subscription);
+            return;
+        }
+        
+        if (event.isFinal() && subscription.markFinal(event.getTransactionId())) {
+            remove(subscription);
+            subscription.emitter.complete();
+        }
+    }
+    
+    private void remove(Subscription subscription) {
+        subscriptionsByUser.computeIfPresent(subscription.userId, (id, subscriptions) -> {
+            subscriptions.remove(subscription);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+    }
+    
+    private static final class Subscription {
+        
+        private final Long userId;
+        private final SseEmitter emitter;
+        // Null for all transactions of the user
+        private final Set<Long> pendingIds;
+        
+        Subscription(Long userId, SseEmitter emitter, Set<Long> transactionIds) {
+            this.userId = userId;
+            this.emitter = emitter;
+            if (transactionIds.isEmpty()) {
+                this.pendingIds = null;
+            } else {
+                this.pendingIds = ConcurrentHashMap.newKeySet();
+                this.pendingIds.addAll(transactionIds);
+            }
+        }
+        
+        boolean covers(Long transactionId) {
+            return pendingIds == null || pendingIds.contains(transactionId);
+        }
+        
+        // True once the last awaited transaction is final
+        boolean markFinal(Long transactionId) {
+            return pendingIds != null && pendingIds.remove(transactionId) && pendingIds.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.finance.wallet.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.wallet.dto.TransactionStatusEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes final status transitions on a Redis channel, from which every node pushes them to its SSE subscribers.
+ * Events are built by the caller from the status it has just written and collected per transaction, the last one
+ * winning, so a savepoint that is rolled back and then marked FAILED announces FAILED. After commit they are handed
+ * to a single publishing thread and sent in one pipelined round trip, so the consumer never waits on Redis.
+ */
+@Service
+@Slf4j
+public class TransactionStatusPublisher {
+    
+    public static final String CHANNEL = "wallet.transaction-status";
+    
+    private static final byte[] CHANNEL_BYTES = CHANNEL.getBytes(StandardCharsets.UTF_8);
+    
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Executor publishExecutor;
+    
+    @Autowired
+    public TransactionStatusPublisher(RedisTemplate<String, String> redisTemplate, ObjectMapper objectMapper,
+                                      @Value("${wallet.status-stream.publish-queue-capacity:10000}")
+                                      int queueCapacity) {
+        // A full queue drops events: subscribers still reach the status endpoint, and a stream times out
+        this(redisTemplate, objectMapper, new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("status-publisher").daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy()));
+    }
+    
+    TransactionStatusPublisher(RedisTemplate<String, String> redisTemplate, ObjectMapper objectMapper,
+                               Executor publishExecutor) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.publishExecutor = publishExecutor;
+    }
+    
+    public void publishAfterCommit(Collection<TransactionStatusEvent> events) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(events);
+            return;
+        }
+        
+        @SuppressWarnings("unchecked")
+        Map<Long, TransactionStatusEvent> pending =
+                (Map<Long, TransactionStatusEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<Long, TransactionStatusEvent> eventsById = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, eventsById);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(eventsById.values());
+                }
+                
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TransactionStatusPublisher.this);
+                }
+            });
+            pending = eventsById;
+        }
+        for (TransactionStatusEvent event : events) {
+            pending.put(event.getTransactionId(), event);
+        }
+    }
+    
+    // For a transaction whose status change was rolled back to a savepoint and not written again
+    public void discardPending(Long transactionId) {
+        @SuppressWarnings("unchecked")
+        Map<Long, TransactionStatusEvent> pending =
+                (Map<Long, TransactionStatusEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            pending.remove(transactionId);
+        }
+    }
+    
+    private void submit(Collection<TransactionStatusEvent> events) {
+        // Intermediate statuses such as PROCESSING are not announced
+        List<TransactionStatusEvent> finalEvents = events.stream().filter(TransactionStatusEvent::isFinal).toList();
+        if (finalEvents.isEmpty()) {
+            return;
+        }
+        
+        try {
+            publishExecutor.execute(() -> publish(finalEvents));
+        } catch (RejectedExecutionException e) {
+            log.warn("Status publishing queue is full, dropped {} status events", finalEvents.size());
+        }
+    }
+    
+    void publish(List<TransactionStatusEvent> events) {
+        List<byte[]> messages = new ArrayList<>(events.size());
+        for (TransactionStatusEvent event : events) {
+            try {
+                messages.add(objectMapper.writeValueAsBytes(event));
+            } catch (Exception e) {
+                log.warn("Failed to serialize status of transaction {}: {}", event.getTransactionId(), e.getMessage());
+            }
+        }
+        
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                messages.forEach(message -> connection.publish(CHANNEL_BYTES, message));
+                return null;
+            });
+        } catch (Exception e) {
+            // Subscribers still get the status from the status endpoint
+            log.warn("Failed to publish status of {} transactions: {}", messages.size(), e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        if (publishExecutor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+}
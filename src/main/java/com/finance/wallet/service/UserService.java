@@ -1,14 +1,20 @@
 package com.finance.wallet.service;
 
+import com.finance.wallet.dto.UserSummary;
 import com.finance.wallet.entity.User;
 import com.finance.wallet.repository.UserRepository;
+import com.finance.wallet.security.PasswordHashingBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -17,32 +23,61 @@ public class UserService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final NearCache<Long, UserSummary> userByIdNearCache;
+    private final NearCache<String, UserSummary> userByEmailNearCache;
+    private final NearCacheInvalidator nearCacheInvalidator;
+    private final MeterRegistry meterRegistry;
     
-    @Transactional(readOnly = true)
-    public Optional<User> findById(Long id) {
-        return userRepository.findById(id);
+    // Near-cached reads: no transaction is opened on a hit, misses go through the repository's own read-only one
+    public Optional<UserSummary> findById(Long id) {
+        return Optional.ofNullable(userByIdNearCache.get(id,
+                key -> userRepository.findById(key).map(UserSummary::fromEntity).orElse(null)));
+    }
+    
+    public Optional<UserSummary> findByEmail(String email) {
+        return Optional.ofNullable(userByEmailNearCache.get(email,
+                key -> userRepository.findByEmail(key).map(UserSummary::fromEntity).orElse(null)));
     }
     
+    // Login reads the password hash, which never goes into the near caches
     @Transactional(readOnly = true)
-    public Optional<User> findByEmail(String email) {
+    public Optional<User> findCredentialsByEmail(String email) {
         return userRepository.findByEmail(email);
     }
     
-    @Transactional
+    /**
+     * Not transactional: the password is hashed, possibly after waiting for a hashing slot, without holding a database
+     * connection, and the insert commits in the repository's own transaction.
+     */
     public User createUser(String name, String email, String password) {
-        if (userRepository.existsByEmail(email)) {
-            throw new IllegalArgumentException("User with email " + email + " already exists");
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            if (userRepository.existsByEmail(email)) {
+                throw new IllegalArgumentException("User with email " + email + " already exists");
+            }
+            
+            User user = User.builder()
+                    .name(name)
+                    .email(email)
+                    .password(passwordEncoder.encode(password))
+                    .build();
+            
+            User savedUser = userRepository.save(user);
+            nearCacheInvalidator.invalidateAfterCommit(userByIdNearCache, savedUser.getId());
+            nearCacheInvalidator.invalidateAfterCommit(userByEmailNearCache, savedUser.getEmail());
+            log.info("Created user: {} with email: {}", savedUser.getId(), savedUser.getEmail());
+            outcome = "success";
+            return savedUser;
+        } catch (PasswordHashingBusyException e) {
+            outcome = "rejected";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("wallet.auth.registration")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
         }
-        
-        User user = User.builder()
-                .name(name)
-                .email(email)
-                .password(passwordEncoder.encode(password))
-                .build();
-        
-        User savedUser = userRepository.save(user);
-        log.info("Created user: {} with email: {}", savedUser.getId(), savedUser.getEmail());
-        return savedUser;
     }
     
     @Transactional(readOnly = true)
@@ -50,4 +85,9 @@ public class UserService {
         return userRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with id: " + id));
     }
+    
+    @Transactional(readOnly = true)
+    public Set<Long> findExistingUserIds(Collection<Long> ids) {
+        return userRepository.findExistingIds(ids);
+    }
 } 
\ No newline at end of file
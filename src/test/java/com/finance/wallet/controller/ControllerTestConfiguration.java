@@ -2,7 +2,9 @@ package com.finance.wallet.controller;
 
 import com.finance.wallet.exception.GlobalExceptionHandler;
 import com.finance.wallet.service.AccountService;
+import com.finance.wallet.service.BalanceCacheService;
 import com.finance.wallet.service.TransactionService;
+import com.finance.wallet.service.TransactionStatusBroadcaster;
 import com.finance.wallet.service.UserService;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -20,4 +22,10 @@ public class ControllerTestConfiguration {
     
     @MockBean
     private AccountService accountService;
+    
+    @MockBean
+    private BalanceCacheService balanceCacheService;
+    
+    @MockBean
+    private TransactionStatusBroadcaster transactionStatusBroadcaster;
 } 
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.finance.wallet.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void parse_PlainDecimals_ReadsMicroUnits() {
+        assertThat(Money.parse("100.00", Account.Currency.USD).getMicros()).isEqualTo(100_000_000L);
+        assertThat(Money.parse("-0.000001", Account.Currency.USD).getMicros()).isEqualTo(-1L);
+        assertThat(Money.parse("12", Account.Currency.TRY).getMicros()).isEqualTo(12_000_000L);
+        assertThat(Money.parse("999999999999.999999", Account.Currency.USD).getMicros())
+                .isEqualTo(999_999_999_999_999_999L);
+    }
+
+    @Test
+    void parse_NonPlainDecimals_FallBackToExactConversion() {
+        assertThat(Money.parse("1E+3", Account.Currency.USD)).isEqualTo(Money.parse("1000", Account.Currency.USD));
+        assertThat(Money.parse("1.50000000", Account.Currency.USD)).isEqualTo(Money.parse("1.5", Account.Currency.USD));
+    }
+
+    @Test
+    void parse_InvalidAmounts_AreRejected() {
+        assertThatThrownBy(() -> Money.parse("invalid_amount", Account.Currency.USD))
+                .isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> Money.parse("1.0000001", Account.Currency.USD))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not representable");
+        assertThatThrownBy(() -> Money.parse("1000000000000", Account.Currency.USD))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void plus_BeyondColumnRange_ThrowsInsteadOfOverflowing() {
+        Money max = Money.parse("999999999999.999999", Account.Currency.USD);
+
+        assertThatThrownBy(() -> max.plus(Money.parse("0.000001", Account.Currency.USD)))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void plus_DifferentCurrencies_ThrowsException() {
+        assertThatThrownBy(() -> Money.parse("1", Account.Currency.USD).plus(Money.parse("1", Account.Currency.TRY)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Currency mismatch: USD and TRY");
+    }
+
+    @Test
+    void convert_RoundsOnceWithRequestedMode() {
+        Money amount = Money.parse("0.000003", Account.Currency.USD);
+
+        assertThat(amount.convert(Account.Currency.TRY, new BigDecimal("0.5"), RoundingMode.HALF_UP).getMicros())
+                .isEqualTo(2L);
+        assertThat(amount.convert(Account.Currency.TRY, new BigDecimal("0.5"), RoundingMode.DOWN).getMicros())
+                .isEqualTo(1L);
+        assertThat(Money.parse("100", Account.Currency.USD)
+                .convert(Account.Currency.TRY, new BigDecimal("33.25"), RoundingMode.HALF_UP))
+                .isEqualTo(Money.parse("3325", Account.Currency.TRY));
+    }
+
+    @Test
+    void toBigDecimal_HasColumnScale() {
+        assertThat(Money.parse("12.5", Account.Currency.USD).toBigDecimal()).isEqualTo(new BigDecimal("12.500000"));
+        assertThat(Money.of(new BigDecimal("12.500000"), Account.Currency.USD))
+                .isEqualTo(Money.parse("12.5", Account.Currency.USD));
+    }
+}
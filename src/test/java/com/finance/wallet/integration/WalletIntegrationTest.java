@@ -51,6 +51,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
         properties = {
                 "wallet.kafka.topics.transactions=test.wallet.txn",
                 "wallet.fx.cache-ttl=1s",
+                "wallet.fx.provider=stub",
                 "wallet.rate-limiting.enabled=false",
                 "spring.main.allow-bean-definition-overriding=true",
                 "spring.kafka.consumer.auto-startup=false",
@@ -333,8 +334,9 @@ class WalletIntegrationTest {
 
         mockMvc.perform(get("/transactions/history/" + savedUser.getId()))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[*].type").value(containsInAnyOrder("DEPOSIT", "WITHDRAWAL")));
+                .andExpect(jsonPath("$.transactions").isArray())
+                .andExpect(jsonPath("$.transactions.length()").value(2))
+                .andExpect(jsonPath("$.transactions[*].type").value(containsInAnyOrder("DEPOSIT", "WITHDRAWAL")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
     }
 } 
\ No newline at end of file
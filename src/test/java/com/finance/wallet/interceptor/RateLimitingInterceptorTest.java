@@ -0,0 +1,173 @@
+package com.finance.wallet.interceptor;
+
+import com.finance.wallet.config.RateLimitingConfig;
+import com.finance.wallet.entity.User;
+import com.finance.wallet.security.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitingInterceptorTest {
+
+    @Mock
+    private ObjectProvider<ProxyManager<byte[]>> proxyManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitingConfig rateLimitingConfig;
+    private RateLimitingInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimitingConfig = new RateLimitingConfig(proxyManager, meterRegistry);
+        ReflectionTestUtils.setField(rateLimitingConfig, "depositLimit", 1L);
+        ReflectionTestUtils.setField(rateLimitingConfig, "withdrawLimit", 1L);
+        ReflectionTestUtils.setField(rateLimitingConfig, "quoteLimit", 2L);
+        ReflectionTestUtils.setField(rateLimitingConfig, "readLimit", 10L);
+        ReflectionTestUtils.setField(rateLimitingConfig, "premiumMultiplier", 3L);
+        ReflectionTestUtils.setField(rateLimitingConfig, "refillPeriod", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(rateLimitingConfig, "maxBuckets", 100L);
+        ReflectionTestUtils.invokeMethod(rateLimitingConfig, "initBucketStore");
+
+        interceptor = new RateLimitingInterceptor(rateLimitingConfig);
+        ReflectionTestUtils.setField(interceptor, "rateLimitingEnabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void localBackend_RejectsOnceCapacityIsUsed() throws Exception {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+
+        assertThat(interceptor.preHandle(post("/transactions/deposit"), first, null)).isTrue();
+        assertThat(interceptor.preHandle(post("/transactions/deposit"), second, null)).isFalse();
+
+        assertThat(first.getHeader("RateLimit-Limit")).isEqualTo("1");
+        assertThat(first.getHeader("RateLimit-Remaining")).isEqualTo("0");
+        assertThat(first.getHeader("RateLimit-Policy")).isEqualTo("1;w=60");
+        assertThat(second.getStatus()).isEqualTo(429);
+        assertThat(second.getHeader("Retry-After")).isEqualTo("60");
+    }
+
+    @Test
+    void legacyHeaders_AreStillSentAlongsideRateLimitFields() throws Exception {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+
+        interceptor.preHandle(post("/transactions/deposit"), first, null);
+        interceptor.preHandle(post("/transactions/deposit"), second, null);
+
+        assertThat(first.getHeader("X-Rate-Limit-Remaining")).isEqualTo("0");
+        assertThat(second.getHeader("X-Rate-Limit-Retry-After-Seconds")).isIn("59", "60");
+    }
+
+    @Test
+    void fxQuotes_HaveTheirOwnBudget() throws Exception {
+        authenticate(7L, User.Plan.STANDARD);
+        MockHttpServletResponse quote = new MockHttpServletResponse();
+
+        assertThat(interceptor.preHandle(post("/transactions/deposit"), new MockHttpServletResponse(), null)).isTrue();
+        assertThat(interceptor.preHandle(post("/fx/quotes"), quote, null)).isTrue();
+        assertThat(quote.getHeader("RateLimit-Limit")).isEqualTo("2");
+    }
+
+    @Test
+    void authenticatedUser_IsLimitedAcrossAddresses() throws Exception {
+        authenticate(7L, User.Plan.STANDARD);
+        MockHttpServletRequest fromOtherAddress = post("/transactions/deposit");
+        fromOtherAddress.setRemoteAddr("10.0.0.2");
+
+        assertThat(interceptor.preHandle(post("/transactions/deposit"), new MockHttpServletResponse(), null)).isTrue();
+        assertThat(interceptor.preHandle(fromOtherAddress, new MockHttpServletResponse(), null)).isFalse();
+    }
+
+    @Test
+    void usersBehindOneAddress_HaveTheirOwnBudgets() throws Exception {
+        authenticate(7L, User.Plan.STANDARD);
+        assertThat(interceptor.preHandle(post("/transactions/deposit"), new MockHttpServletResponse(), null)).isTrue();
+
+        authenticate(8L, User.Plan.STANDARD);
+        assertThat(interceptor.preHandle(post("/transactions/deposit"), new MockHttpServletResponse(), null)).isTrue();
+    }
+
+    @Test
+    void endpointClasses_HaveSeparateBudgets() throws Exception {
+        authenticate(7L, User.Plan.STANDARD);
+        MockHttpServletResponse read = new MockHttpServletResponse();
+
+        assertThat(interceptor.preHandle(post("/transactions/deposit"), new MockHttpServletResponse(), null)).isTrue();
+        assertThat(interceptor.preHandle(post("/transactions/withdraw"), new MockHttpServletResponse(), null)).isTrue();
+        assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/transactions/balance/7"), read, null))
+                .isTrue();
+        assertThat(read.getHeader("RateLimit-Limit")).isEqualTo("10");
+    }
+
+    @Test
+    void premiumPlan_GetsMultipliedLimit() throws Exception {
+        authenticate(7L, User.Plan.PREMIUM);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(interceptor.preHandle(post("/transactions/deposit"), response, null)).isTrue();
+        assertThat(response.getHeader("RateLimit-Limit")).isEqualTo("3");
+        assertThat(response.getHeader("RateLimit-Remaining")).isEqualTo("2");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void manyClients_KeepBucketStoreBounded() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            MockHttpServletRequest request = post("/transactions/deposit");
+            request.addHeader("X-Forwarded-For", "203.0.113." + i);
+            interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        }
+
+        Cache<String, Bucket> buckets = (Cache<String, Bucket>) ReflectionTestUtils.getField(rateLimitingConfig,
+                "buckets");
+        buckets.cleanUp();
+        assertThat(buckets.estimatedSize()).isLessThanOrEqualTo(100);
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", "rate-limit-buckets").functionCounter().count())
+                .isGreaterThan(0);
+    }
+
+    @Test
+    void unreachableRedis_AllowsRequest() throws Exception {
+        when(proxyManager.getIfAvailable()).thenThrow(new IllegalStateException("Unable to connect to Redis"));
+
+        assertThat(interceptor.preHandle(post("/transactions/deposit"), new MockHttpServletResponse(), null)).isTrue();
+    }
+
+    private static MockHttpServletRequest post(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setRemoteAddr("10.0.0.1");
+        return request;
+    }
+
+    private static void authenticate(Long userId, User.Plan plan) {
+        UserPrincipal principal = new UserPrincipal(userId, null, "user" + userId + "@example.com", null, plan);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
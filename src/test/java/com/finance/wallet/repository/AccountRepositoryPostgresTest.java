@@ -0,0 +1,239 @@
+package com.finance.wallet.repository;
+
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The native balance statements use PostgreSQL syntax that H2 cannot run
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers
+class AccountRepositoryPostgresTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:15-alpine"))
+            .withDatabaseName("walletdb_test")
+            .withUsername("test_user")
+            .withPassword("test_pass");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.sql.init.mode", () -> "always");
+        registry.add("spring.sql.init.schema-locations", () -> "classpath:schema.sql");
+    }
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private User user;
+
+    // Fixtures go through a template so that tests running outside the test transaction see them committed;
+    // balances are read back through scalar queries because the native statements bypass the persistence context
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        user = transactionTemplate.execute(status -> userRepository.save(User.builder()
+                .name("John Doe")
+                .email("john.doe@example.com")
+                .password("$2a$10$encodedPassword123")
+                .build()));
+        createAccount(Account.Currency.USD, "100.00");
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            accountRepository.deleteAllInBatch();
+            userRepository.deleteAllInBatch();
+        });
+    }
+
+    @Test
+    void applyBalanceDelta_Credit_ReturnsNewBalanceAndBumpsVersion() {
+        Optional<BigDecimal> balance = accountRepository.applyBalanceDelta(user.getId(), "USD",
+                new BigDecimal("25.50"));
+
+        assertThat(balance).hasValueSatisfying(value ->
+                assertThat(value).isEqualByComparingTo(new BigDecimal("125.50")));
+        assertThat(versionOf(Account.Currency.USD)).isEqualTo(1L);
+    }
+
+    @Test
+    void applyBalanceDelta_DebitToExactlyZero_IsApplied() {
+        Optional<BigDecimal> balance = accountRepository.applyBalanceDelta(user.getId(), "USD",
+                new BigDecimal("-100.00"));
+
+        assertThat(balance).hasValueSatisfying(value -> assertThat(value).isEqualByComparingTo(BigDecimal.ZERO));
+        assertThat(balanceOf(Account.Currency.USD)).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void applyBalanceDelta_Overdraft_ReturnsEmptyAndLeavesBalanceUnchanged() {
+        Optional<BigDecimal> balance = accountRepository.applyBalanceDelta(user.getId(), "USD",
+                new BigDecimal("-100.01"));
+
+        assertThat(balance).isEmpty();
+        assertThat(balanceOf(Account.Currency.USD)).isEqualByComparingTo(new BigDecimal("100.00"));
+        assertThat(versionOf(Account.Currency.USD)).isZero();
+    }
+
+    @Test
+    void applyBalanceDelta_MissingAccount_ReturnsEmpty() {
+        Optional<BigDecimal> balance = accountRepository.applyBalanceDelta(user.getId(), "EUR",
+                new BigDecimal("10.00"));
+
+        assertThat(balance).isEmpty();
+        assertThat(accountRepository.findBalanceByUserIdAndCurrency(user.getId(), Account.Currency.EUR)).isEmpty();
+    }
+
+    @Test
+    void exchange_CoveredDebit_MovesBothLegs() {
+        createAccount(Account.Currency.EUR, "10.00");
+
+        AccountRepository.ExchangeBalances balances = accountRepository.exchange(user.getId(), "USD", "EUR",
+                new BigDecimal("40.00"), new BigDecimal("36.80"));
+
+        assertThat(balances.getFromBalance()).isEqualByComparingTo(new BigDecimal("60.00"));
+        assertThat(balances.getToBalance()).isEqualByComparingTo(new BigDecimal("46.80"));
+        assertThat(balanceOf(Account.Currency.USD)).isEqualByComparingTo(new BigDecimal("60.00"));
+        assertThat(balanceOf(Account.Currency.EUR)).isEqualByComparingTo(new BigDecimal("46.80"));
+        assertThat(versionOf(Account.Currency.USD)).isEqualTo(1L);
+        assertThat(versionOf(Account.Currency.EUR)).isEqualTo(1L);
+    }
+
+    @Test
+    void exchange_UncoveredDebit_ChangesNoRows() {
+        createAccount(Account.Currency.EUR, "10.00");
+
+        AccountRepository.ExchangeBalances balances = accountRepository.exchange(user.getId(), "USD", "EUR",
+                new BigDecimal("100.01"), new BigDecimal("92.00"));
+
+        assertThat(balances.getFromBalance()).isNull();
+        assertThat(balances.getToBalance()).isNull();
+        assertThat(balanceOf(Account.Currency.USD)).isEqualByComparingTo(new BigDecimal("100.00"));
+        assertThat(balanceOf(Account.Currency.EUR)).isEqualByComparingTo(new BigDecimal("10.00"));
+        assertThat(versionOf(Account.Currency.USD)).isZero();
+        assertThat(versionOf(Account.Currency.EUR)).isZero();
+    }
+
+    @Test
+    void exchange_MissingDestinationAccount_IsCreated() {
+        AccountRepository.ExchangeBalances balances = accountRepository.exchange(user.getId(), "USD", "EUR",
+                new BigDecimal("40.00"), new BigDecimal("36.80"));
+
+        assertThat(balances.getFromBalance()).isEqualByComparingTo(new BigDecimal("60.00"));
+        assertThat(balances.getToBalance()).isEqualByComparingTo(new BigDecimal("36.80"));
+        assertThat(balanceOf(Account.Currency.EUR)).isEqualByComparingTo(new BigDecimal("36.80"));
+        assertThat(versionOf(Account.Currency.EUR)).isZero();
+    }
+
+    @Test
+    void exchange_UncoveredDebitWithMissingDestination_CreatesNoAccount() {
+        accountRepository.exchange(user.getId(), "USD", "EUR", new BigDecimal("100.01"), new BigDecimal("92.00"));
+
+        assertThat(accountRepository.findBalanceByUserIdAndCurrency(user.getId(), Account.Currency.EUR)).isEmpty();
+    }
+
+    @Test
+    void exchange_MissingSourceAccount_MovesNothing() {
+        AccountRepository.ExchangeBalances balances = accountRepository.exchange(user.getId(), "EUR", "USD",
+                new BigDecimal("10.00"), new BigDecimal("10.87"));
+
+        assertThat(balances.getFromBalance()).isNull();
+        assertThat(balances.getToBalance()).isNull();
+        assertThat(balanceOf(Account.Currency.USD)).isEqualByComparingTo(new BigDecimal("100.00"));
+        assertThat(accountRepository.findBalanceByUserIdAndCurrency(user.getId(), Account.Currency.EUR)).isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void exchange_ConcurrentOppositeDirections_CompleteWithoutDeadlock() throws Exception {
+        createAccount(Account.Currency.EUR, "100.00");
+        CyclicBarrier start = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<?> usdToEur = executor.submit(() -> exchangeRepeatedly(start, "USD", "EUR"));
+            Future<?> eurToUsd = executor.submit(() -> exchangeRepeatedly(start, "EUR", "USD"));
+
+            // A deadlock would surface here as PostgreSQL aborting one of the two transactions
+            usdToEur.get(30, TimeUnit.SECONDS);
+            eurToUsd.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(balanceOf(Account.Currency.USD)).isEqualByComparingTo(new BigDecimal("100.00"));
+        assertThat(balanceOf(Account.Currency.EUR)).isEqualByComparingTo(new BigDecimal("100.00"));
+        assertThat(versionOf(Account.Currency.USD)).isEqualTo(100L);
+        assertThat(versionOf(Account.Currency.EUR)).isEqualTo(100L);
+    }
+
+    private Void exchangeRepeatedly(CyclicBarrier start, String fromCurrency, String toCurrency) throws Exception {
+        start.await();
+        for (int i = 0; i < 50; i++) {
+            AccountRepository.ExchangeBalances balances = accountRepository.exchange(user.getId(),
+                    fromCurrency, toCurrency, BigDecimal.ONE, BigDecimal.ONE);
+            assertThat(balances.getFromBalance()).isNotNull();
+        }
+        return null;
+    }
+
+    private void createAccount(Account.Currency currency, String balance) {
+        transactionTemplate.executeWithoutResult(status -> accountRepository.save(Account.builder()
+                .user(user)
+                .currency(currency)
+                .balance(new BigDecimal(balance))
+                .build()));
+    }
+
+    private BigDecimal balanceOf(Account.Currency currency) {
+        return accountRepository.findBalanceByUserIdAndCurrency(user.getId(), currency).orElseThrow();
+    }
+
+    private Long versionOf(Account.Currency currency) {
+        return accountRepository.findBalanceSnapshotByUserId(user.getId()).stream()
+                .filter(snapshot -> snapshot.getCurrency() == currency)
+                .findFirst()
+                .orElseThrow()
+                .getVersion();
+    }
+}
@@ -196,6 +196,30 @@ class AccountRepositoryTest {
         assertThat(updatedAccount.getUpdatedAt()).isAfter(updatedAccount.getCreatedAt());
     }
 
+    @Test
+    void findBalanceSnapshotByUserId_ReturnsBalancesWithVersions() {
+        User savedUser = entityManager.persistAndFlush(testUser);
+        usdAccount.setUser(savedUser);
+        tryAccount.setUser(savedUser);
+        Account savedUsd = entityManager.persistAndFlush(usdAccount);
+        entityManager.persistAndFlush(tryAccount);
+        savedUsd.setBalance(new BigDecimal("1500.00"));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<AccountRepository.BalanceSnapshot> snapshot =
+                accountRepository.findBalanceSnapshotByUserId(savedUser.getId());
+
+        assertThat(snapshot).extracting(AccountRepository.BalanceSnapshot::getCurrency)
+                .containsExactlyInAnyOrder(Account.Currency.USD, Account.Currency.TRY);
+        assertThat(snapshot).filteredOn(account -> account.getCurrency() == Account.Currency.USD)
+                .singleElement()
+                .satisfies(account -> {
+                    assertThat(account.getBalance()).isEqualByComparingTo("1500.00");
+                    assertThat(account.getVersion()).isEqualTo(1L);
+                });
+    }
+
     @Test
     void findByUserId_MultipleUsers_ReturnsOnlyUserAccounts() {
         User user1 = entityManager.persistAndFlush(testUser);
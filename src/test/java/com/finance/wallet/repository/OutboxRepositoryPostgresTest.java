@@ -0,0 +1,161 @@
+package com.finance.wallet.repository;
+
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.OutboxMessage;
+import com.finance.wallet.entity.Transaction;
+import com.finance.wallet.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The relay query relies on advisory locks and LATERAL joins that H2 cannot run
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers
+class OutboxRepositoryPostgresTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:15-alpine"))
+            .withDatabaseName("walletdb_test")
+            .withUsername("test_user")
+            .withPassword("test_pass");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.sql.init.mode", () -> "always");
+        registry.add("spring.sql.init.schema-locations", () -> "classpath:schema.sql");
+    }
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transaction = transactionTemplate.execute(status -> {
+            User user = userRepository.save(User.builder()
+                    .name("John Doe")
+                    .email("john.doe@example.com")
+                    .password("$2a$10$encodedPassword123")
+                    .build());
+            return transactionRepository.save(Transaction.builder()
+                    .user(user)
+                    .type(Transaction.TransactionType.DEPOSIT)
+                    .currency(Account.Currency.USD)
+                    .amount(new BigDecimal("100.00"))
+                    .status(Transaction.TransactionStatus.PENDING)
+                    .build());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxRepository.deleteAllInBatch();
+            transactionRepository.deleteAllInBatch();
+            userRepository.deleteAllInBatch();
+        });
+    }
+
+    @Test
+    void lockNextBatch_BusyKey_ContributesAtMostRowsPerKey() {
+        Long first = enqueue("7");
+        Long second = enqueue("7");
+        Long other = enqueue("8");
+        enqueue("7");
+
+        List<OutboxMessage> batch = outboxRepository.lockNextBatch(10, 2);
+
+        assertThat(batch).extracting(OutboxMessage::getId).containsExactly(first, second, other);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void lockNextBatch_KeyClaimedByAnotherWorker_ReturnsTheNextFreeKeys() throws Exception {
+        Long claimed = enqueue("7");
+        Long free = enqueue("8");
+        enqueue("7");
+        Long laterFree = enqueue("9");
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<List<OutboxMessage>> firstWorker = executor.submit(() -> transactionTemplate.execute(status -> {
+                List<OutboxMessage> batch = outboxRepository.lockNextBatch(1, 10);
+                locked.countDown();
+                await(release);
+                return batch;
+            }));
+            assertThat(locked.await(30, TimeUnit.SECONDS)).isTrue();
+
+            // The first worker holds the oldest key, so a limit of two must still fill up with the keys behind it
+            List<OutboxMessage> secondWorker = transactionTemplate.execute(status ->
+                    outboxRepository.lockNextBatch(2, 10));
+
+            release.countDown();
+            assertThat(firstWorker.get(30, TimeUnit.SECONDS)).extracting(OutboxMessage::getId).contains(claimed);
+            assertThat(secondWorker).extracting(OutboxMessage::getId).containsExactly(free, laterFree);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private Long enqueue(String messageKey) {
+        return transactionTemplate.execute(status -> outboxRepository.save(OutboxMessage.builder()
+                .transactionId(transaction.getId())
+                .messageKey(messageKey)
+                .payload("{}")
+                .build())).getId();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.finance.wallet.repository;
+
+import com.finance.wallet.dto.TransactionResponse;
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.Transaction;
+import com.finance.wallet.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+class TransactionRepositoryTest {
+
+    private static final LocalDateTime MIN = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private User savedUser;
+    private Transaction deposit;
+    private Transaction withdrawal;
+    private Transaction secondDeposit;
+
+    @BeforeEach
+    void setUp() {
+        savedUser = entityManager.persistAndFlush(User.builder()
+                .name("John Doe")
+                .email("john.doe@example.com")
+                .password("$2a$10$encodedPassword123")
+                .build());
+
+        deposit = entityManager.persistAndFlush(transaction(Transaction.TransactionType.DEPOSIT));
+        withdrawal = entityManager.persistAndFlush(transaction(Transaction.TransactionType.WITHDRAWAL));
+        secondDeposit = entityManager.persistAndFlush(transaction(Transaction.TransactionType.DEPOSIT));
+        entityManager.clear();
+    }
+
+    @Test
+    void findHistoryPage_WalksHistoryNewestFirstWithoutGapsOrRepeats() {
+        List<TransactionResponse> firstPage = transactionRepository.findHistoryPage(savedUser.getId(),
+                EnumSet.allOf(Transaction.TransactionType.class), EnumSet.allOf(Transaction.TransactionStatus.class),
+                MIN, MAX, MAX, Long.MAX_VALUE, PageRequest.ofSize(2));
+
+        assertThat(firstPage).extracting(TransactionResponse::getId)
+                .containsExactly(secondDeposit.getId(), withdrawal.getId());
+
+        TransactionResponse last = firstPage.getLast();
+        List<TransactionResponse> secondPage = transactionRepository.findHistoryPage(savedUser.getId(),
+                EnumSet.allOf(Transaction.TransactionType.class), EnumSet.allOf(Transaction.TransactionStatus.class),
+                MIN, MAX, last.getCreatedAt(), last.getId(), PageRequest.ofSize(2));
+
+        assertThat(secondPage).extracting(TransactionResponse::getId).containsExactly(deposit.getId());
+    }
+
+    @Test
+    void findHistoryPage_WithTypeFilter_ReturnsOnlyMatchingRows() {
+        List<TransactionResponse> page = transactionRepository.findHistoryPage(savedUser.getId(),
+                EnumSet.of(Transaction.TransactionType.DEPOSIT), EnumSet.allOf(Transaction.TransactionStatus.class),
+                MIN, MAX, MAX, Long.MAX_VALUE, PageRequest.ofSize(10));
+
+        assertThat(page).extracting(TransactionResponse::getId).containsExactly(secondDeposit.getId(), deposit.getId());
+    }
+
+    @Test
+    void streamHistory_ReturnsAllMatchingRowsNewestFirst() {
+        try (Stream<TransactionResponse> history = transactionRepository.streamHistory(savedUser.getId(),
+                EnumSet.allOf(Transaction.TransactionType.class), EnumSet.allOf(Transaction.TransactionStatus.class),
+                MIN, MAX)) {
+            assertThat(history.map(TransactionResponse::getId))
+                    .containsExactly(secondDeposit.getId(), withdrawal.getId(), deposit.getId());
+        }
+    }
+
+    @Test
+    void findHistoryPage_ProjectsResponseColumns() {
+        List<TransactionResponse> page = transactionRepository.findHistoryPage(savedUser.getId(),
+                EnumSet.of(Transaction.TransactionType.WITHDRAWAL), EnumSet.allOf(Transaction.TransactionStatus.class),
+                MIN, MAX, MAX, Long.MAX_VALUE, PageRequest.ofSize(10));
+
+        assertThat(page).singleElement().satisfies(response -> {
+            assertThat(response.getUserId()).isEqualTo(savedUser.getId());
+            assertThat(response.getType()).isEqualTo(Transaction.TransactionType.WITHDRAWAL);
+            assertThat(response.getAmount()).isEqualByComparingTo("100.00");
+            assertThat(response.getStatus()).isEqualTo(Transaction.TransactionStatus.COMPLETED);
+            assertThat(response.getCreatedAt()).isNotNull();
+        });
+    }
+
+    @Test
+    void findLatestStatusByUserId_ReturnsNewestTransaction() {
+        List<TransactionRepository.TransactionStatusView> latest =
+                transactionRepository.findLatestStatusByUserId(savedUser.getId(), PageRequest.ofSize(1));
+
+        assertThat(latest).singleElement().satisfies(view -> {
+            assertThat(view.getType()).isEqualTo(Transaction.TransactionType.DEPOSIT);
+            assertThat(view.getStatus()).isEqualTo(Transaction.TransactionStatus.COMPLETED);
+            assertThat(view.getCreatedAt()).isNotNull();
+        });
+    }
+
+    @Test
+    void insertAll_WritesRowsAndAssignsGeneratedIds() {
+        Transaction first = transaction(Transaction.TransactionType.DEPOSIT).toBuilder()
+                .idempotencyKey("batch-1")
+                .build();
+        Transaction second = transaction(Transaction.TransactionType.EXCHANGE).toBuilder()
+                .toCurrency(Account.Currency.TRY)
+                .quotedRate(new BigDecimal("33.25"))
+                .toAmount(new BigDecimal("3325.00"))
+                .idempotencyKey("batch-2")
+                .build();
+
+        transactionRepository.insertAll(List.of(first, second));
+
+        assertThat(first.getId()).isNotNull();
+        assertThat(second.getId()).isGreaterThan(first.getId());
+        assertThat(transactionRepository.findByIdempotencyKeyIn(List.of("batch-1", "batch-2", "missing")))
+                .extracting(Transaction::getId)
+                .containsExactlyInAnyOrder(first.getId(), second.getId());
+        assertThat(transactionRepository.findById(second.getId())).get().satisfies(saved -> {
+            assertThat(saved.getToCurrency()).isEqualTo(Account.Currency.TRY);
+            assertThat(saved.getToAmount()).isEqualByComparingTo("3325.00");
+        });
+    }
+
+    @Test
+    void updateStatusByIdsIfStatus_SecondClaimOfSameTransaction_UpdatesNothing() {
+        Transaction pending = transaction(Transaction.TransactionType.DEPOSIT);
+        pending.setStatus(Transaction.TransactionStatus.PENDING);
+        Long id = entityManager.persistAndFlush(pending).getId();
+        entityManager.clear();
+
+        int first = transactionRepository.updateStatusByIdsIfStatus(List.of(id, deposit.getId()),
+                Transaction.TransactionStatus.PENDING, Transaction.TransactionStatus.PROCESSING, LocalDateTime.now());
+        int second = transactionRepository.updateStatusByIdsIfStatus(List.of(id),
+                Transaction.TransactionStatus.PENDING, Transaction.TransactionStatus.PROCESSING, LocalDateTime.now());
+
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isZero();
+        entityManager.clear();
+        assertThat(transactionRepository.findById(id)).get()
+                .extracting(Transaction::getStatus).isEqualTo(Transaction.TransactionStatus.PROCESSING);
+    }
+
+    private Transaction transaction(Transaction.TransactionType type) {
+        return Transaction.builder()
+                .user(savedUser)
+                .type(type)
+                .currency(Account.Currency.USD)
+                .amount(new BigDecimal("100.00"))
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .build();
+    }
+}
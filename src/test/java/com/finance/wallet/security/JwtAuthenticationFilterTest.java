@@ -0,0 +1,105 @@
+package com.finance.wallet.security;
+
+import com.finance.wallet.dto.UserSummary;
+import com.finance.wallet.entity.User;
+import com.finance.wallet.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private UserService userService;
+
+    private JwtUtils jwtUtils;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "testSecretKey1234567890abcdefghijklmnopqrstuvwxyz");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationHours", 1);
+        jwtUtils.init();
+
+        filter = new JwtAuthenticationFilter(jwtUtils, userService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void validToken_AuthenticatesFromClaimsWithoutUserLookup() throws Exception {
+        doFilter("Bearer " + jwtUtils.generateJwtToken("john.doe@example.com", 7L, User.Plan.STANDARD));
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getPrincipal()).isInstanceOfSatisfying(UserPrincipal.class, principal -> {
+            assertThat(principal.getId()).isEqualTo(7L);
+            assertThat(principal.getEmail()).isEqualTo("john.doe@example.com");
+            assertThat(principal.getPlan()).isEqualTo(User.Plan.STANDARD);
+            assertThat(principal.getAuthorities()).isEmpty();
+        });
+        verify(userService, never()).findById(any());
+    }
+
+    @Test
+    void tokenSignedWithOtherKey_LeavesRequestUnauthenticated() throws Exception {
+        JwtUtils otherIssuer = new JwtUtils();
+        ReflectionTestUtils.setField(otherIssuer, "jwtSecret", "otherSecretKey1234567890abcdefghijklmnopqrstuvwxyz");
+        ReflectionTestUtils.setField(otherIssuer, "jwtExpirationHours", 1);
+        otherIssuer.init();
+
+        doFilter("Bearer " + otherIssuer.generateJwtToken("john.doe@example.com", 7L, User.Plan.STANDARD));
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void revocationCheck_RejectsTokenOfMissingUser() throws Exception {
+        ReflectionTestUtils.setField(filter, "revocationCheckEnabled", true);
+        when(userService.findById(7L)).thenReturn(Optional.empty());
+
+        doFilter("Bearer " + jwtUtils.generateJwtToken("john.doe@example.com", 7L, User.Plan.STANDARD));
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void revocationCheck_AcceptsTokenOfExistingUser() throws Exception {
+        ReflectionTestUtils.setField(filter, "revocationCheckEnabled", true);
+        when(userService.findById(7L)).thenReturn(Optional.of(UserSummary.builder()
+                .id(7L)
+                .email("john.doe@example.com")
+                .build()));
+
+        doFilter("Bearer " + jwtUtils.generateJwtToken("john.doe@example.com", 7L, User.Plan.STANDARD));
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+    }
+
+    private void doFilter(String authorization) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/transactions/balance/7");
+        request.addHeader("Authorization", authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+}
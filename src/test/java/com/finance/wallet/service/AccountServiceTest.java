@@ -1,6 +1,7 @@
 package com.finance.wallet.service;
 
 import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.Money;
 import com.finance.wallet.entity.User;
 import com.finance.wallet.repository.AccountRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,14 +13,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -30,12 +30,14 @@ class AccountServiceTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private BalanceCacheService balanceCacheService;
+
     @InjectMocks
     private AccountService accountService;
 
     private User testUser;
     private Account usdAccount;
-    private Account tryAccount;
 
     @BeforeEach
     void setUp() {
@@ -54,38 +56,6 @@ class AccountServiceTest {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
-
-        tryAccount = Account.builder()
-                .id(2L)
-                .user(testUser)
-                .currency(Account.Currency.TRY)
-                .balance(new BigDecimal("33250.00"))
-                .createdAt(LocalDateTime.now())
-                .updatedAt(LocalDateTime.now())
-                .build();
-    }
-
-    @Test
-    void getAccountsByUserId_ReturnsUserAccounts() {
-        List<Account> accounts = Arrays.asList(usdAccount, tryAccount);
-        when(accountRepository.findByUserId(1L)).thenReturn(accounts);
-        List<Account> result = accountService.getAccountsByUserId(1L);
-        assertThat(result).hasSize(2);
-        assertThat(result).containsExactlyInAnyOrder(usdAccount, tryAccount);
-        verify(accountRepository).findByUserId(1L);
-    }
-
-    @Test
-    void getBalancesByUserId_ReturnsBalancesMap() {
-        List<Account> accounts = Arrays.asList(usdAccount, tryAccount);
-        when(accountRepository.findByUserId(1L)).thenReturn(accounts);
-
-        Map<Account.Currency, BigDecimal> result = accountService.getBalancesByUserId(1L);
-
-        assertThat(result).hasSize(2);
-        assertThat(result.get(Account.Currency.USD)).isEqualByComparingTo(new BigDecimal("1000.00"));
-        assertThat(result.get(Account.Currency.TRY)).isEqualByComparingTo(new BigDecimal("33250.00"));
-        verify(accountRepository).findByUserId(1L);
     }
 
     @Test
@@ -113,107 +83,128 @@ class AccountServiceTest {
 
     @Test
     void updateBalance_WithSufficientFunds_UpdatesBalanceSuccessfully() {
-        Account accountWithBalance = Account.builder()
-                .id(1L)
-                .user(testUser)
-                .currency(Account.Currency.USD)
-                .balance(new BigDecimal("1000.00"))
-                .build();
-
-        when(accountRepository.findByUserIdAndCurrencyWithLock(1L, Account.Currency.USD))
-                .thenReturn(Optional.of(accountWithBalance));
-        when(accountRepository.save(any(Account.class))).thenReturn(accountWithBalance);
+        when(accountRepository.applyBalanceDelta(1L, "USD", new BigDecimal("100.000000")))
+                .thenReturn(Optional.of(new BigDecimal("1100.00")));
 
-        Account result = accountService.updateBalance(1L, Account.Currency.USD, new BigDecimal("100.00"));
+        Money result = accountService.updateBalance(1L, Money.parse("100.00", Account.Currency.USD));
 
-        assertThat(result.getBalance()).isEqualByComparingTo(new BigDecimal("1100.00"));
+        assertThat(result).isEqualTo(Money.parse("1100.00", Account.Currency.USD));
 
-        verify(accountRepository).findByUserIdAndCurrencyWithLock(1L, Account.Currency.USD);
-        verify(accountRepository).save(any(Account.class));
+        verify(accountRepository).applyBalanceDelta(1L, "USD", new BigDecimal("100.000000"));
+        verify(balanceCacheService).invalidateAfterCommit(1L);
+        verify(accountRepository, never()).findByUserIdAndCurrencyWithLock(any(), any());
+        verify(accountRepository, never()).save(any(Account.class));
     }
 
     @Test
     void updateBalance_WithInsufficientFunds_ThrowsException() {
-        Account accountWithLowBalance = Account.builder()
-                .id(1L)
-                .user(testUser)
-                .currency(Account.Currency.USD)
-                .balance(new BigDecimal("50.00"))
-                .build();
-
-        when(accountRepository.findByUserIdAndCurrencyWithLock(1L, Account.Currency.USD))
-                .thenReturn(Optional.of(accountWithLowBalance));
+        when(accountRepository.applyBalanceDelta(1L, "USD", new BigDecimal("-100.000000")))
+                .thenReturn(Optional.empty());
+        when(accountRepository.findBalanceByUserIdAndCurrency(1L, Account.Currency.USD))
+                .thenReturn(Optional.of(new BigDecimal("50.00")));
 
-        assertThatThrownBy(() -> accountService.updateBalance(1L, Account.Currency.USD, new BigDecimal("-100.00")))
+        assertThatThrownBy(() -> accountService.updateBalance(1L, Money.parse("-100.00", Account.Currency.USD)))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Insufficient balance");
 
-        verify(accountRepository).findByUserIdAndCurrencyWithLock(1L, Account.Currency.USD);
+        verify(accountRepository).applyBalanceDelta(1L, "USD", new BigDecimal("-100.000000"));
+        verify(balanceCacheService, never()).invalidateAfterCommit(any());
         verify(accountRepository, never()).save(any(Account.class));
     }
 
     @Test
     void updateBalance_WhenAccountNotFound_ThrowsException() {
-        when(accountRepository.findByUserIdAndCurrencyWithLock(1L, Account.Currency.USD))
+        when(accountRepository.applyBalanceDelta(1L, "USD", new BigDecimal("100.000000")))
+                .thenReturn(Optional.empty());
+        when(accountRepository.findBalanceByUserIdAndCurrency(1L, Account.Currency.USD))
                 .thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> accountService.updateBalance(1L, Account.Currency.USD, new BigDecimal("100.00")))
+        assertThatThrownBy(() -> accountService.updateBalance(1L, Money.parse("100.00", Account.Currency.USD)))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Account not found");
 
-        verify(accountRepository).findByUserIdAndCurrencyWithLock(1L, Account.Currency.USD);
+        verify(accountRepository).applyBalanceDelta(1L, "USD", new BigDecimal("100.000000"));
         verify(accountRepository, never()).save(any(Account.class));
     }
 
     @Test
-    void getBalance_WhenAccountExists_ReturnsBalance() {
-        when(accountRepository.findByUserIdAndCurrency(1L, Account.Currency.USD))
-                .thenReturn(Optional.of(usdAccount));
-
-        BigDecimal result = accountService.getBalance(1L, Account.Currency.USD);
-
-        assertThat(result).isEqualByComparingTo(new BigDecimal("1000.00"));
+    void exchange_WithSufficientFunds_MovesBothLegsInOneStatement() {
+        AccountRepository.ExchangeBalances balances = mock(AccountRepository.ExchangeBalances.class);
+        when(balances.getFromBalance()).thenReturn(new BigDecimal("900.00"));
+        when(balances.getToBalance()).thenReturn(new BigDecimal("36575.00"));
+        when(accountRepository.exchange(1L, "USD", "TRY",
+                new BigDecimal("100.000000"), new BigDecimal("3325.000000")))
+                .thenReturn(balances);
+
+        AccountRepository.ExchangeBalances result = accountService.exchange(1L,
+                Money.parse("100.00", Account.Currency.USD), Money.parse("3325.00", Account.Currency.TRY));
+
+        assertThat(result.getFromBalance()).isEqualByComparingTo(new BigDecimal("900.00"));
+        assertThat(result.getToBalance()).isEqualByComparingTo(new BigDecimal("36575.00"));
+        verify(balanceCacheService).invalidateAfterCommit(1L);
+        verify(accountRepository, never()).findBalanceByUserIdAndCurrency(any(), any());
+        verify(accountRepository, never()).save(any(Account.class));
+    }
 
-        verify(accountRepository).findByUserIdAndCurrency(1L, Account.Currency.USD);
+    @Test
+    void exchange_WithInsufficientFunds_ThrowsException() {
+        AccountRepository.ExchangeBalances balances = mock(AccountRepository.ExchangeBalances.class);
+        when(accountRepository.exchange(1L, "USD", "TRY",
+                new BigDecimal("2000.000000"), new BigDecimal("66500.000000")))
+                .thenReturn(balances);
+        when(accountRepository.findBalanceByUserIdAndCurrency(1L, Account.Currency.USD))
+                .thenReturn(Optional.of(new BigDecimal("1000.00")));
+
+        assertThatThrownBy(() -> accountService.exchange(1L, Money.parse("2000.00", Account.Currency.USD),
+                Money.parse("66500.00", Account.Currency.TRY)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Insufficient balance for exchange");
     }
 
     @Test
-    void getBalance_WhenAccountDoesNotExist_ReturnsZero() {
-        when(accountRepository.findByUserIdAndCurrency(1L, Account.Currency.USD))
+    void exchange_WhenSourceAccountNotFound_ThrowsException() {
+        AccountRepository.ExchangeBalances balances = mock(AccountRepository.ExchangeBalances.class);
+        when(accountRepository.exchange(1L, "USD", "TRY",
+                new BigDecimal("100.000000"), new BigDecimal("3325.000000")))
+                .thenReturn(balances);
+        when(accountRepository.findBalanceByUserIdAndCurrency(1L, Account.Currency.USD))
                 .thenReturn(Optional.empty());
 
-        BigDecimal result = accountService.getBalance(1L, Account.Currency.USD);
-        assertThat(result).isEqualByComparingTo(BigDecimal.ZERO);
-        verify(accountRepository).findByUserIdAndCurrency(1L, Account.Currency.USD);
+        assertThatThrownBy(() -> accountService.exchange(1L, Money.parse("100.00", Account.Currency.USD),
+                Money.parse("3325.00", Account.Currency.TRY)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Account not found");
     }
 
     @Test
-    void hasValidBalance_WithSufficientFunds_ReturnsTrue() {
-        when(accountRepository.findByUserIdAndCurrency(1L, Account.Currency.USD))
-                .thenReturn(Optional.of(usdAccount));
+    void exchange_SameCurrency_ThrowsException() {
+        assertThatThrownBy(() -> accountService.exchange(1L, Money.parse("100.00", Account.Currency.USD),
+                Money.parse("100.00", Account.Currency.USD)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("to itself");
 
-        boolean result = accountService.hasValidBalance(1L, Account.Currency.USD, new BigDecimal("500.00"));
-        assertThat(result).isTrue();
-        verify(accountRepository).findByUserIdAndCurrency(1L, Account.Currency.USD);
+        verify(accountRepository, never()).exchange(any(), anyString(), anyString(), any(), any());
     }
 
     @Test
-    void hasValidBalance_WithInsufficientFunds_ReturnsFalse() {
-        when(accountRepository.findByUserIdAndCurrency(1L, Account.Currency.USD))
-                .thenReturn(Optional.of(usdAccount));
+    void getBalance_WhenAccountExists_ReturnsBalance() {
+        when(accountRepository.findBalanceByUserIdAndCurrency(1L, Account.Currency.USD))
+                .thenReturn(Optional.of(usdAccount.getBalance()));
 
-        boolean result = accountService.hasValidBalance(1L, Account.Currency.USD, new BigDecimal("1500.00"));
-        assertThat(result).isFalse();
-        verify(accountRepository).findByUserIdAndCurrency(1L, Account.Currency.USD);
+        BigDecimal result = accountService.getBalance(1L, Account.Currency.USD);
+
+        assertThat(result).isEqualByComparingTo(new BigDecimal("1000.00"));
+
+        verify(accountRepository).findBalanceByUserIdAndCurrency(1L, Account.Currency.USD);
     }
 
     @Test
-    void hasValidBalance_WhenAccountDoesNotExist_ReturnsFalse() {
-        when(accountRepository.findByUserIdAndCurrency(1L, Account.Currency.USD))
+    void getBalance_WhenAccountDoesNotExist_ReturnsZero() {
+        when(accountRepository.findBalanceByUserIdAndCurrency(1L, Account.Currency.USD))
                 .thenReturn(Optional.empty());
 
-        boolean result = accountService.hasValidBalance(1L, Account.Currency.USD, new BigDecimal("100.00"));
-        assertThat(result).isFalse();
-        verify(accountRepository).findByUserIdAndCurrency(1L, Account.Currency.USD);
+        BigDecimal result = accountService.getBalance(1L, Account.Currency.USD);
+        assertThat(result).isEqualByComparingTo(BigDecimal.ZERO);
+        verify(accountRepository).findBalanceByUserIdAndCurrency(1L, Account.Currency.USD);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.finance.wallet.service;
+
+import com.finance.wallet.dto.LoginRequest;
+import com.finance.wallet.security.BoundedPasswordEncoder;
+import com.finance.wallet.security.JwtUtils;
+import com.finance.wallet.security.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    @Mock
+    private JwtUtils jwtUtils;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private LoginRequest request;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        request = new LoginRequest("unknown@example.com", "password123");
+    }
+
+    @Test
+    void authenticateUser_UnknownUserWhileHashingIsBusy_IsRejected() {
+        // Given - no hashing slot and no room to wait, so even the timing-attack hash for an unknown email is refused
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(email -> {
+            throw new UsernameNotFoundException("User not found with email: " + email);
+        });
+        provider.setPasswordEncoder(new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 0, 0,
+                Duration.ofMillis(50)));
+        AuthService authService = new AuthService(new ProviderManager(provider), jwtUtils, meterRegistry);
+
+        // When / Then
+        assertThatThrownBy(() -> authService.authenticateUser(request))
+                .isInstanceOf(PasswordHashingBusyException.class);
+        assertThat(meterRegistry.get("wallet.auth.login").tag("outcome", "rejected").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void authenticateUser_BusyHashingWrappedByProvider_IsUnwrapped() {
+        // Given
+        AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+        PasswordHashingBusyException busy = new PasswordHashingBusyException("Busy");
+        when(authenticationManager.authenticate(any()))
+                .thenThrow(new InternalAuthenticationServiceException(busy.getMessage(), busy));
+        AuthService authService = new AuthService(authenticationManager, jwtUtils, meterRegistry);
+
+        // When / Then
+        assertThatThrownBy(() -> authService.authenticateUser(request)).isSameAs(busy);
+        assertThat(meterRegistry.get("wallet.auth.login").tag("outcome", "rejected").timer().count())
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,205 @@
+package com.finance.wallet.service;
+
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceCacheServiceTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Spy
+    private NearCache<Long, Map<Account.Currency, BigDecimal>> balanceNearCache =
+            new NearCache<>("balances", 100, Duration.ofMinutes(1), Long::valueOf);
+
+    @Mock
+    private NearCacheInvalidator nearCacheInvalidator;
+
+    @InjectMocks
+    private BalanceCacheService balanceCacheService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(balanceCacheService, "ttl", Duration.ofMinutes(10));
+    }
+
+    @Test
+    void getBalances_CacheHit_DoesNotQueryDatabase() {
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("balance:1")).thenReturn(Map.of("version", "3", "USD", "1000.000000"));
+
+        Map<Account.Currency, BigDecimal> balances = balanceCacheService.getBalances(1L);
+
+        assertThat(balances).containsOnlyKeys(Account.Currency.USD);
+        assertThat(balances.get(Account.Currency.USD)).isEqualByComparingTo("1000");
+        verify(accountRepository, never()).findBalanceSnapshotByUserId(any());
+    }
+
+    @Test
+    void getBalances_NearCacheHit_DoesNotQueryRedis() {
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("balance:1")).thenReturn(Map.of("version", "3", "USD", "1000.000000"));
+
+        balanceCacheService.getBalances(1L);
+        Map<Account.Currency, BigDecimal> balances = balanceCacheService.getBalances(1L);
+
+        assertThat(balances.get(Account.Currency.USD)).isEqualByComparingTo("1000");
+        verify(hashOperations, times(1)).entries("balance:1");
+    }
+
+    @Test
+    void getBalances_CacheMiss_LoadsFromDatabaseAndWritesVersionedEntry() {
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("balance:1")).thenReturn(Map.of());
+        when(accountRepository.findBalanceSnapshotByUserId(1L)).thenReturn(List.of(
+                new Snapshot(Account.Currency.USD, new BigDecimal("1000.000000"), 3L),
+                new Snapshot(Account.Currency.TRY, new BigDecimal("5000.000000"), 4L)));
+
+        Map<Account.Currency, BigDecimal> balances = balanceCacheService.getBalances(1L);
+
+        assertThat(balances.get(Account.Currency.TRY)).isEqualByComparingTo("5000");
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("balance:1")), eq("0"), eq("7"),
+                eq("600000"), eq("USD"), eq("1000.000000"), eq("TRY"), eq("5000.000000"));
+    }
+
+    @Test
+    void getBalances_Tombstone_LoadsFromDatabaseAndWritesAgainstItsGeneration() {
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("balance:1")).thenReturn(Map.of("generation", "4"));
+        when(accountRepository.findBalanceSnapshotByUserId(1L)).thenReturn(List.of(
+                new Snapshot(Account.Currency.USD, new BigDecimal("900.000000"), 5L)));
+
+        Map<Account.Currency, BigDecimal> balances = balanceCacheService.getBalances(1L);
+
+        assertThat(balances).containsOnlyKeys(Account.Currency.USD);
+        assertThat(balances.get(Account.Currency.USD)).isEqualByComparingTo("900");
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("balance:1")), eq("4"), eq("5"),
+                eq("600000"), eq("USD"), eq("900.000000"));
+    }
+
+    @Test
+    void getBalances_CacheHitWithGeneration_IgnoresGenerationField() {
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("balance:1")).thenReturn(
+                Map.of("generation", "4", "version", "5", "USD", "900.000000"));
+
+        Map<Account.Currency, BigDecimal> balances = balanceCacheService.getBalances(1L);
+
+        assertThat(balances).containsOnlyKeys(Account.Currency.USD);
+        verify(accountRepository, never()).findBalanceSnapshotByUserId(any());
+    }
+
+    @Test
+    void getBalances_RedisDown_FallsBackToDatabase() {
+        when(redisTemplate.opsForHash()).thenThrow(new RedisConnectionFailureException("Redis down"));
+        when(accountRepository.findBalanceSnapshotByUserId(1L)).thenReturn(List.of(
+                new Snapshot(Account.Currency.USD, new BigDecimal("1000.000000"), 3L)));
+
+        Map<Account.Currency, BigDecimal> balances = balanceCacheService.getBalances(1L);
+
+        assertThat(balances.get(Account.Currency.USD)).isEqualByComparingTo("1000");
+        verify(redisTemplate, never()).execute(any(RedisScript.class), any(), any(Object[].class));
+    }
+
+    @Test
+    void invalidateAfterCommit_InTransaction_InvalidatesEachUserOnceAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            balanceCacheService.invalidateAfterCommit(1L);
+            balanceCacheService.invalidateAfterCommit(1L);
+
+            verify(redisTemplate, never()).execute(any(RedisScript.class), any(), any(Object[].class));
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertThat(synchronizations).hasSize(1);
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+            synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), eq(List.of("balance:1")), eq("600000"));
+        verify(accountRepository, never()).findBalanceSnapshotByUserId(any());
+        assertThat(TransactionSynchronizationManager.getResource(balanceCacheService)).isNull();
+        verify(nearCacheInvalidator).invalidate(balanceNearCache, 1L);
+    }
+
+    @Test
+    void invalidateAfterCommit_RolledBack_KeepsEntry() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            balanceCacheService.invalidateAfterCommit(1L);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(redisTemplate, never()).execute(any(RedisScript.class), any(), any(Object[].class));
+        verify(nearCacheInvalidator, never()).invalidate(any(), any());
+    }
+
+    @Test
+    void invalidateAfterCommit_RedisFails_StillInvalidatesNearCaches() {
+        when(redisTemplate.execute(any(RedisScript.class), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("Redis down"));
+
+        balanceCacheService.invalidateAfterCommit(1L);
+
+        verify(nearCacheInvalidator).invalidate(balanceNearCache, 1L);
+    }
+
+    private record Snapshot(Account.Currency currency, BigDecimal balance, Long version)
+            implements AccountRepository.BalanceSnapshot {
+
+        @Override
+        public Account.Currency getCurrency() {
+            return currency;
+        }
+
+        @Override
+        public BigDecimal getBalance() {
+            return balance;
+        }
+
+        @Override
+        public Long getVersion() {
+            return version;
+        }
+    }
+}
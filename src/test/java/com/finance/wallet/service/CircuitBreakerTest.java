@@ -0,0 +1,73 @@
+package com.finance.wallet.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class CircuitBreakerTest {
+
+    @Test
+    void call_ConsecutiveFailuresReachThreshold_OpensAndRejectsCalls() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 2, Duration.ofMinutes(1));
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> circuitBreaker.call(() -> failingCall(calls)))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("upstream down");
+        }
+
+        assertThat(circuitBreaker.isOpen()).isTrue();
+        assertThatThrownBy(() -> circuitBreaker.call(() -> failingCall(calls)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Circuit breaker test is open");
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void call_SuccessResetsFailureCount() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 2, Duration.ofMinutes(1));
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> circuitBreaker.call(() -> failingCall(calls)));
+        circuitBreaker.call(() -> "ok");
+        assertThatThrownBy(() -> circuitBreaker.call(() -> failingCall(calls)));
+
+        assertThat(circuitBreaker.isOpen()).isFalse();
+    }
+
+    @Test
+    void call_AfterOpenDuration_TrialCallClosesBreaker() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 1, Duration.ofMillis(50));
+        AtomicInteger calls = new AtomicInteger();
+        assertThatThrownBy(() -> circuitBreaker.call(() -> failingCall(calls)));
+
+        await().atMost(Duration.ofSeconds(1)).ignoreExceptions()
+                .until(() -> "ok".equals(circuitBreaker.call(() -> "ok")));
+
+        assertThat(circuitBreaker.isOpen()).isFalse();
+    }
+
+    @Test
+    void call_FailedTrialCall_OpensBreakerAgain() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 1, Duration.ZERO);
+        AtomicInteger calls = new AtomicInteger();
+        assertThatThrownBy(() -> circuitBreaker.call(() -> failingCall(calls)));
+
+        assertThatThrownBy(() -> circuitBreaker.call(() -> failingCall(calls)))
+                .hasMessage("upstream down");
+
+        assertThat(circuitBreaker.isOpen()).isTrue();
+        assertThat(calls).hasValue(2);
+    }
+
+    private static String failingCall(AtomicInteger calls) {
+        calls.incrementAndGet();
+        throw new IllegalStateException("upstream down");
+    }
+}
@@ -0,0 +1,165 @@
+package com.finance.wallet.service;
+
+import com.finance.wallet.dto.FxQuoteResponse;
+import com.finance.wallet.entity.Account;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FxQuoteServiceTest {
+
+    @Mock
+    private FxRateService fxRateService;
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private FxQuoteService fxQuoteService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fxQuoteService, "quoteTtl", Duration.ofSeconds(30));
+    }
+
+    @Test
+    void issueQuote_StoresQuoteWithTtl() {
+        when(fxRateService.getExchangeRate(Account.Currency.USD, Account.Currency.TRY)).thenReturn(new BigDecimal("33.25"));
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        FxQuoteResponse quote = fxQuoteService.issueQuote(1L, Account.Currency.USD, Account.Currency.TRY);
+
+        assertThat(quote.getQuoteId()).isNotBlank();
+        assertThat(quote.getRate()).isEqualByComparingTo("33.25");
+        assertThat(quote.getExpiresAt()).isAfter(Instant.now());
+        verify(valueOperations).set(eq("fx_quote:" + quote.getQuoteId()), startsWith("1:USD:TRY:33.25:"),
+                eq(Duration.ofSeconds(30)));
+    }
+
+    @Test
+    void issueQuote_SameCurrency_ThrowsException() {
+        assertThatThrownBy(() -> fxQuoteService.issueQuote(1L, Account.Currency.USD, Account.Currency.USD))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot quote USD to itself");
+
+        verifyNoInteractions(fxRateService);
+    }
+
+    @Test
+    void redeemQuote_ValidQuote_ReturnsLockedRateAndRemovesQuoteOnlyAfterCommit() {
+        long expiresAt = Instant.now().plusSeconds(30).toEpochMilli();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("fx_quote:quote-123")).thenReturn("1:USD:TRY:33.25:" + expiresAt);
+        when(valueOperations.setIfAbsent(eq("fx_quote_claim:quote-123"), eq("1"), any(Duration.class)))
+                .thenReturn(true);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            BigDecimal rate = fxQuoteService.redeemQuote("quote-123", 1L, Account.Currency.USD,
+                    Account.Currency.TRY);
+
+            assertThat(rate).isEqualByComparingTo("33.25");
+            verify(redisTemplate, never()).delete(anyCollection());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(redisTemplate).delete(List.of("fx_quote:quote-123", "fx_quote_claim:quote-123"));
+    }
+
+    @Test
+    void redeemQuote_RolledBack_ReleasesClaimAndKeepsQuote() {
+        long expiresAt = Instant.now().plusSeconds(30).toEpochMilli();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("fx_quote:quote-123")).thenReturn("1:USD:TRY:33.25:" + expiresAt);
+        when(valueOperations.setIfAbsent(eq("fx_quote_claim:quote-123"), eq("1"), any(Duration.class)))
+                .thenReturn(true);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            fxQuoteService.redeemQuote("quote-123", 1L, Account.Currency.USD, Account.Currency.TRY);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(redisTemplate).delete("fx_quote_claim:quote-123");
+        verify(redisTemplate, never()).delete(anyCollection());
+    }
+
+    @Test
+    void redeemQuote_AlreadyClaimed_ThrowsException() {
+        long expiresAt = Instant.now().plusSeconds(30).toEpochMilli();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("fx_quote:quote-123")).thenReturn("1:USD:TRY:33.25:" + expiresAt);
+        when(valueOperations.setIfAbsent(eq("fx_quote_claim:quote-123"), eq("1"), any(Duration.class)))
+                .thenReturn(false);
+
+        assertThatThrownBy(() -> fxQuoteService.redeemQuote("quote-123", 1L, Account.Currency.USD, Account.Currency.TRY))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("FX quote quote-123 has already been used");
+    }
+
+    @Test
+    void redeemQuote_UnknownQuote_ThrowsException() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("fx_quote:quote-123")).thenReturn(null);
+
+        assertThatThrownBy(() -> fxQuoteService.redeemQuote("quote-123", 1L, Account.Currency.USD, Account.Currency.TRY))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown or expired FX quote: quote-123");
+    }
+
+    @Test
+    void redeemQuote_ExpiredQuote_ThrowsException() {
+        long expiresAt = Instant.now().minusSeconds(1).toEpochMilli();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("fx_quote:quote-123")).thenReturn("1:USD:TRY:33.25:" + expiresAt);
+
+        assertThatThrownBy(() -> fxQuoteService.redeemQuote("quote-123", 1L, Account.Currency.USD, Account.Currency.TRY))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown or expired FX quote: quote-123");
+    }
+
+    @Test
+    void redeemQuote_DifferentPair_ThrowsException() {
+        long expiresAt = Instant.now().plusSeconds(30).toEpochMilli();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("fx_quote:quote-123")).thenReturn("1:USD:TRY:33.25:" + expiresAt);
+
+        assertThatThrownBy(() -> fxQuoteService.redeemQuote("quote-123", 1L, Account.Currency.TRY, Account.Currency.USD))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("FX quote quote-123 does not match the exchange request");
+    }
+}
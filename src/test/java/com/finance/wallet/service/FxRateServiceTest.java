@@ -1,20 +1,37 @@
 package com.finance.wallet.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Duration;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.failedFuture;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -27,18 +44,131 @@ class FxRateServiceTest {
     private RedisTemplate<String, String> redisTemplate;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private FxRateProvider fxRateProvider;
 
     @Mock
     private ValueOperations<String, String> valueOperations;
 
+    @Spy
+    private CircuitBreaker fxProviderCircuitBreaker = new CircuitBreaker("fx-provider", 5, Duration.ofSeconds(30));
+
+    @Spy
+    private CurrencyRegistry currencyRegistry = new CurrencyRegistry(Account.Currency.USD, Map.of(
+            Account.Currency.TRY, new BigDecimal("33.25"),
+            Account.Currency.EUR, new BigDecimal("0.92"),
+            Account.Currency.GBP, new BigDecimal("0.79")));
+
     @InjectMocks
     private FxRateService fxRateService;
 
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(fxRateService, "fxApiUrl", "https://api.exchangerate-api.com/v4/latest/USD");
         ReflectionTestUtils.setField(fxRateService, "cacheTtl", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(fxRateService, "maxRateAge", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(fxRateService, "fetchTimeout", Duration.ofSeconds(5));
+    }
+
+    @Test
+    void getExchangeRate_ConcurrentMisses_ShareOneFetch() throws Exception {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        CompletableFuture<Map<String, BigDecimal>> pendingFetch = new CompletableFuture<>();
+        when(fxRateProvider.fetchRates("USD")).thenReturn(pendingFetch);
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<BigDecimal>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> fxRateService.getExchangeRate("USD", "TRY")));
+            }
+            Thread.sleep(100);
+            pendingFetch.complete(Map.of("TRY", new BigDecimal("34.10")));
+
+            for (Future<BigDecimal> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualByComparingTo("34.10");
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        verify(fxRateProvider, times(1)).fetchRates("USD");
+    }
+
+    @Test
+    void getExchangeRate_RateOlderThanCacheTtl_ServesStaleRateAndRefreshesInBackground() throws Exception {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(fxRateProvider.fetchRates("USD"))
+                .thenReturn(completedFuture(Map.of("TRY", new BigDecimal("34.10"))))
+                .thenReturn(completedFuture(Map.of("TRY", new BigDecimal("34.20"))));
+        fxRateService.refreshRates();
+        ReflectionTestUtils.setField(fxRateService, "cacheTtl", Duration.ZERO);
+
+        BigDecimal result = fxRateService.getExchangeRate("USD", "TRY");
+
+        assertThat(result).isEqualByComparingTo("34.10");
+        await().atMost(Duration.ofSeconds(2))
+                .untilAsserted(() -> assertThat(fxRateService.getExchangeRate("USD", "TRY")).isEqualByComparingTo("34.20"));
+    }
+
+    @Test
+    void getExchangeRate_ProviderKeepsFailing_OpensCircuitBreaker() throws Exception {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(fxRateProvider.fetchRates("USD")).thenReturn(failedFuture(new IllegalStateException("FX API down")));
+
+        for (int i = 0; i < 8; i++) {
+            assertThat(fxRateService.getExchangeRate("USD", "TRY")).isEqualByComparingTo("33.25");
+        }
+
+        assertThat(fxProviderCircuitBreaker.isOpen()).isTrue();
+        verify(fxRateProvider, times(5)).fetchRates("USD");
+    }
+
+    @Test
+    void refreshRates_ThenGetExchangeRate_ServesFromMemory() throws Exception {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(fxRateProvider.fetchRates("USD")).thenReturn(completedFuture(Map.of("TRY", new BigDecimal("34.10"))));
+
+        fxRateService.refreshRates();
+        clearInvocations(valueOperations);
+
+        assertThat(fxRateService.getExchangeRate("USD", "TRY")).isEqualByComparingTo("34.10");
+        assertThat(fxRateService.getExchangeRate("TRY", "USD")).isEqualByComparingTo("0.02932551319648094");
+        verifyNoInteractions(valueOperations);
+    }
+
+    @Test
+    void refreshRates_WritesRatesToRedisAsBackup() throws Exception {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(fxRateProvider.fetchRates("USD")).thenReturn(completedFuture(Map.of("TRY", new BigDecimal("34.10"))));
+
+        fxRateService.refreshRates();
+
+        verify(valueOperations).set("fx_rate:USD_TRY", "34.10", Duration.ofSeconds(60));
+        verifyNoMoreInteractions(valueOperations);
+    }
+
+    @Test
+    void refreshRates_FailedRefresh_KeepsPreviousRates() throws Exception {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(fxRateProvider.fetchRates("USD"))
+                .thenReturn(completedFuture(Map.of("TRY", new BigDecimal("34.10"))))
+                .thenReturn(failedFuture(new IllegalStateException("FX API down")));
+
+        fxRateService.refreshRates();
+        fxRateService.refreshRates();
+
+        assertThat(fxRateService.getExchangeRate("USD", "TRY")).isEqualByComparingTo("34.10");
+    }
+
+    @Test
+    void getExchangeRate_RatesOlderThanMaxAge_AreNotServedFromMemory() throws Exception {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(fxRateProvider.fetchRates("USD")).thenReturn(completedFuture(Map.of("TRY", new BigDecimal("34.10"))));
+        fxRateService.refreshRates();
+        ReflectionTestUtils.setField(fxRateService, "maxRateAge", Duration.ZERO);
+        when(valueOperations.get("fx_rate:USD_TRY")).thenReturn("33.90");
+
+        BigDecimal result = fxRateService.getExchangeRate("USD", "TRY");
+
+        assertThat(result).isEqualByComparingTo("33.90");
     }
 
     @Test
@@ -47,7 +177,7 @@ class FxRateServiceTest {
 
         assertThat(result).isEqualByComparingTo(BigDecimal.ONE);
         
-        verifyNoInteractions(objectMapper);
+        verifyNoInteractions(fxRateProvider);
     }
 
     @Test
@@ -61,7 +191,7 @@ class FxRateServiceTest {
         assertThat(result).isEqualByComparingTo(new BigDecimal("33.25"));
         
         verify(valueOperations).get(cacheKey);
-        verifyNoMoreInteractions(objectMapper);
+        verifyNoInteractions(fxRateProvider);
     }
 
     @Test
@@ -77,7 +207,7 @@ class FxRateServiceTest {
 
     @Test
     void getExchangeRate_TryToUsd_UsesMockRate() {
-        String cacheKey = "fx_rate:TRY_USD";
+        String cacheKey = "fx_rate:USD_TRY";
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
         when(valueOperations.get(cacheKey)).thenReturn(null);
 
@@ -87,14 +217,70 @@ class FxRateServiceTest {
     }
 
     @Test
-    void getExchangeRate_UnknownCurrencyPair_ReturnsOne() {
-        String cacheKey = "fx_rate:EUR_GBP";
+    void getExchangeRate_CrossPair_TriangulatesThroughPivot() throws Exception {
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
-        when(valueOperations.get(cacheKey)).thenReturn(null);
+        when(fxRateProvider.fetchRates("USD")).thenReturn(completedFuture(Map.of(
+                "TRY", new BigDecimal("34.10"), "EUR", new BigDecimal("0.92"))));
+
+        fxRateService.refreshRates();
+
+        assertThat(fxRateService.getExchangeRate("EUR", "TRY")).isEqualByComparingTo("37.06521739130435");
+        assertThat(fxRateService.getExchangeRate("TRY", "EUR")).isEqualByComparingTo("0.02697947214076246");
+        verify(fxRateProvider, times(1)).fetchRates("USD");
+    }
+
+    @Test
+    void crossRate_SmallRate_KeepsSignificantDigits() {
+        BigDecimal[] perPivot = new BigDecimal[Account.Currency.values().length];
+        perPivot[Account.Currency.USD.ordinal()] = BigDecimal.ONE;
+        perPivot[Account.Currency.GBP.ordinal()] = new BigDecimal("0.79");
+        perPivot[Account.Currency.JPY.ordinal()] = new BigDecimal("151.37");
+
+        BigDecimal rate = FxRateMatrix.crossRate(Account.Currency.USD.ordinal(), perPivot,
+                Account.Currency.JPY.ordinal(), Account.Currency.GBP.ordinal());
+
+        assertThat(rate).isEqualByComparingTo("0.005218999801810134");
+        assertThat(Money.parse("1000000", Account.Currency.JPY).convert(Account.Currency.GBP, rate,
+                RoundingMode.HALF_UP)).isEqualTo(Money.parse("5218.999802", Account.Currency.GBP));
+    }
+
+    @Test
+    void getExchangeRate_CrossPairFromCache_TriangulatesCachedLegs() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("fx_rate:USD_EUR")).thenReturn("0.92");
+        when(valueOperations.get("fx_rate:USD_GBP")).thenReturn("0.79");
 
         BigDecimal result = fxRateService.getExchangeRate("EUR", "GBP");
 
-        assertThat(result).isEqualByComparingTo(BigDecimal.ONE);
+        assertThat(result).isEqualByComparingTo("0.8586956521739130");
+        verifyNoInteractions(fxRateProvider);
+    }
+
+    @Test
+    void getExchangeRate_CrossPairWithoutRates_UsesFallbackRates() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        BigDecimal result = fxRateService.getExchangeRate("GBP", "TRY");
+
+        assertThat(result).isEqualByComparingTo("42.08860759493671");
+    }
+
+    @Test
+    void getExchangeRate_NoRateAnywhere_ThrowsException() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        assertThatThrownBy(() -> fxRateService.getExchangeRate("USD", "JPY"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("FX rate service unavailable");
+    }
+
+    @Test
+    void getExchangeRate_UnsupportedCurrency_ThrowsException() {
+        assertThatThrownBy(() -> fxRateService.getExchangeRate("USD", "XAU"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unsupported currency: XAU");
+
+        verifyNoInteractions(fxRateProvider);
     }
 
     @Test
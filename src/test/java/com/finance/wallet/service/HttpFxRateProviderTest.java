@@ -0,0 +1,82 @@
+package com.finance.wallet.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HttpFxRateProviderTest {
+
+    private WireMockServer wireMockServer;
+    private HttpFxRateProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer = new WireMockServer(options().dynamicPort());
+        wireMockServer.start();
+        provider = new HttpFxRateProvider(new ObjectMapper(), wireMockServer.baseUrl() + "/latest/",
+                Duration.ofSeconds(1), Duration.ofMillis(500));
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.shutdown();
+        wireMockServer.stop();
+    }
+
+    @Test
+    void fetchRates_ReturnsSupportedRates() throws Exception {
+        wireMockServer.stubFor(get(urlEqualTo("/latest/USD"))
+                .willReturn(okJson("{\"base\":\"USD\",\"rates\":{\"USD\":1,\"TRY\":33.25,\"EUR\":0.92,\"XAU\":0.00043}}")));
+
+        Map<String, BigDecimal> rates = provider.fetchRates("USD").get();
+
+        assertThat(rates).containsOnlyKeys("TRY", "EUR");
+        assertThat(rates.get("TRY")).isEqualByComparingTo("33.25");
+    }
+
+    @Test
+    void fetchRates_KeepsFullPrecisionOfProviderRates() throws Exception {
+        wireMockServer.stubFor(get(urlEqualTo("/latest/GBP"))
+                .willReturn(okJson("{\"rates\":{\"JPY\":191.123456789012345,\"CHF\":1.1234567891}}")));
+
+        Map<String, BigDecimal> rates = provider.fetchRates("GBP").get();
+
+        assertThat(rates.get("JPY")).isEqualTo(new BigDecimal("191.123456789012345"));
+        assertThat(rates.get("CHF")).isEqualTo(new BigDecimal("1.1234567891"));
+    }
+
+    @Test
+    void fetchRates_ErrorStatus_FailsFuture() {
+        wireMockServer.stubFor(get(urlEqualTo("/latest/USD")).willReturn(aResponse().withStatus(503)));
+
+        assertThatThrownBy(() -> provider.fetchRates("USD").get())
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("FX provider returned status 503 for base USD");
+    }
+
+    @Test
+    void fetchRates_SlowResponse_TimesOut() {
+        wireMockServer.stubFor(get(urlEqualTo("/latest/USD"))
+                .willReturn(okJson("{\"rates\":{\"TRY\":33.25}}").withFixedDelay(2000)));
+
+        assertThatThrownBy(() -> provider.fetchRates("USD").get())
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(HttpTimeoutException.class);
+    }
+}
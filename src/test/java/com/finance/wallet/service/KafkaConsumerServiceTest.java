@@ -1,24 +1,41 @@
 package com.finance.wallet.service;
 
 import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.Money;
 import com.finance.wallet.entity.Transaction;
 import com.finance.wallet.entity.User;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,9 +51,24 @@ class KafkaConsumerServiceTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private KeyOrderedExecutor keyOrderedExecutor;
+
     @Mock
     private FxRateService fxRateService;
 
+    @Mock
+    private TransactionStatusPublisher transactionStatusPublisher;
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
     @Mock
     private Acknowledgment acknowledgment;
 
@@ -52,6 +84,12 @@ class KafkaConsumerServiceTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(kafkaConsumerService, "laneRetryBackoff", Duration.ZERO);
+        ReflectionTestUtils.setField(kafkaConsumerService, "laneMaxAttempts", 3);
+        // Every transaction is still PENDING unless a test says otherwise
+        lenient().when(transactionService.claimForProcessing(anyCollection()))
+                .thenAnswer(invocation -> invocation.<Collection<?>>getArgument(0).size());
+
         testUser = User.builder()
                 .id(1L)
                 .name("John Doe")
@@ -77,29 +115,32 @@ class KafkaConsumerServiceTest {
         depositMessage = new KafkaProducerService.TransactionMessage();
         depositMessage.id = 1L;
         depositMessage.userId = 1L;
-        depositMessage.type = "DEPOSIT";
-        depositMessage.currency = "USD";
-        depositMessage.amount = "100.00";
-        depositMessage.status = "PENDING";
+        depositMessage.type = Transaction.TransactionType.DEPOSIT;
+        depositMessage.currency = Account.Currency.USD;
+        depositMessage.amountMicros = 100_000_000L;
+        depositMessage.status = Transaction.TransactionStatus.PENDING;
         depositMessage.description = "Test deposit";
 
         withdrawalMessage = new KafkaProducerService.TransactionMessage();
         withdrawalMessage.id = 2L;
         withdrawalMessage.userId = 1L;
-        withdrawalMessage.type = "WITHDRAWAL";
-        withdrawalMessage.currency = "USD";
-        withdrawalMessage.amount = "50.00";
-        withdrawalMessage.status = "PENDING";
+        withdrawalMessage.type = Transaction.TransactionType.WITHDRAWAL;
+        withdrawalMessage.currency = Account.Currency.USD;
+        withdrawalMessage.amountMicros = 50_000_000L;
+        withdrawalMessage.status = Transaction.TransactionStatus.PENDING;
         withdrawalMessage.description = "Test withdrawal";
 
         exchangeMessage = new KafkaProducerService.TransactionMessage();
         exchangeMessage.id = 3L;
         exchangeMessage.userId = 1L;
-        exchangeMessage.type = "EXCHANGE";
-        exchangeMessage.currency = "USD";
-        exchangeMessage.amount = "100.00";
-        exchangeMessage.status = "PENDING";
-        exchangeMessage.description = "Exchange USD to TRY: Test exchange";
+        exchangeMessage.type = Transaction.TransactionType.EXCHANGE;
+        exchangeMessage.currency = Account.Currency.USD;
+        exchangeMessage.amountMicros = 100_000_000L;
+        exchangeMessage.toCurrency = Account.Currency.TRY;
+        exchangeMessage.quotedRate = new BigDecimal("33.25");
+        exchangeMessage.toAmountMicros = 3_325_000_000L;
+        exchangeMessage.status = Transaction.TransactionStatus.PENDING;
+        exchangeMessage.description = "Test exchange";
     }
 
     @Test
@@ -111,26 +152,40 @@ class KafkaConsumerServiceTest {
         kafkaConsumerService.processTransaction(depositMessage, "1", acknowledgment);
 
         // Then
-        verify(transactionService).updateTransactionStatus(1L, Transaction.TransactionStatus.PROCESSING, null);
+        verify(transactionService).claimForProcessing(List.of(1L));
         verify(userService).getUserById(1L);
         verify(accountService).createAccount(testUser, Account.Currency.USD);
-        verify(accountService).updateBalance(1L, Account.Currency.USD, new BigDecimal("100.00"));
+        verify(accountService).updateBalance(1L, Money.parse("100.00", Account.Currency.USD));
         verify(transactionService).updateTransactionStatus(1L, Transaction.TransactionStatus.COMPLETED, null);
         verify(acknowledgment).acknowledge();
     }
 
     @Test
-    void processTransaction_WithdrawalType_ProcessesSuccessfully() {
+    void processTransaction_SameMessageDeliveredTwice_AppliesItOnce() {
         // Given
-        when(accountService.hasValidBalance(1L, Account.Currency.USD, new BigDecimal("50.00"))).thenReturn(true);
+        when(userService.getUserById(1L)).thenReturn(testUser);
+        when(transactionService.claimForProcessing(List.of(1L))).thenReturn(1, 0);
+
+        // When
+        kafkaConsumerService.processTransaction(depositMessage, "1", acknowledgment);
+        kafkaConsumerService.processTransaction(depositMessage, "1", acknowledgment);
 
+        // Then
+        verify(accountService, times(1)).updateBalance(1L, Money.parse("100.00", Account.Currency.USD));
+        verify(transactionService, times(1)).updateTransactionStatus(1L, Transaction.TransactionStatus.COMPLETED, null);
+        verify(transactionService, never()).updateTransactionStatus(eq(1L), eq(Transaction.TransactionStatus.FAILED),
+                any());
+        verify(acknowledgment, times(2)).acknowledge();
+    }
+
+    @Test
+    void processTransaction_WithdrawalType_ProcessesSuccessfully() {
         // When
         kafkaConsumerService.processTransaction(withdrawalMessage, "2", acknowledgment);
 
         // Then
-        verify(transactionService).updateTransactionStatus(2L, Transaction.TransactionStatus.PROCESSING, null);
-        verify(accountService).hasValidBalance(1L, Account.Currency.USD, new BigDecimal("50.00"));
-        verify(accountService).updateBalance(1L, Account.Currency.USD, new BigDecimal("50.00").negate());
+        verify(transactionService).claimForProcessing(List.of(2L));
+        verify(accountService).updateBalance(1L, Money.parse("-50.00", Account.Currency.USD));
         verify(transactionService).updateTransactionStatus(2L, Transaction.TransactionStatus.COMPLETED, null);
         verify(acknowledgment).acknowledge();
     }
@@ -138,38 +193,70 @@ class KafkaConsumerServiceTest {
     @Test
     void processTransaction_WithdrawalType_InsufficientBalance_FailsTransaction() {
         // Given
-        when(accountService.hasValidBalance(1L, Account.Currency.USD, new BigDecimal("50.00"))).thenReturn(false);
+        when(accountService.updateBalance(1L, Money.parse("-50.00", Account.Currency.USD)))
+                .thenThrow(new IllegalArgumentException("Insufficient balance. Current: 10.00, Requested: 50.00"));
 
         // When
         kafkaConsumerService.processTransaction(withdrawalMessage, "2", acknowledgment);
 
         // Then
-        verify(transactionService).updateTransactionStatus(2L, Transaction.TransactionStatus.PROCESSING, null);
-        verify(accountService).hasValidBalance(1L, Account.Currency.USD, new BigDecimal("50.00"));
-        verify(accountService, never()).updateBalance(anyLong(), any(Account.Currency.class), any(BigDecimal.class));
-        verify(transactionService).updateTransactionStatus(eq(2L), eq(Transaction.TransactionStatus.FAILED), anyString());
+        verify(transactionService).claimForProcessing(List.of(2L));
+        verify(transactionService, never()).updateTransactionStatus(2L, Transaction.TransactionStatus.COMPLETED, null);
+        verify(transactionService).updateTransactionStatus(eq(2L), eq(Transaction.TransactionStatus.FAILED),
+                contains("Insufficient balance"));
         verify(acknowledgment).acknowledge();
     }
 
     @Test
-    void processTransaction_ExchangeType_ProcessesSuccessfully() {
+    void processTransaction_Failure_RollsBackWorkAndMarksFailedInNewTransaction() {
         // Given
-        when(accountService.hasValidBalance(1L, Account.Currency.USD, new BigDecimal("100.00"))).thenReturn(true);
-        when(fxRateService.getExchangeRate("USD", "TRY")).thenReturn(new BigDecimal("33.25"));
-        when(userService.getUserById(1L)).thenReturn(testUser);
+        SimpleTransactionStatus work = new SimpleTransactionStatus();
+        SimpleTransactionStatus failure = new SimpleTransactionStatus();
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        when(transactionManager.getTransaction(any())).thenReturn(work, failure);
+        when(accountService.updateBalance(1L, Money.parse("-50.00", Account.Currency.USD)))
+                .thenThrow(new IllegalArgumentException("Insufficient balance"));
 
+        // When
+        kafkaConsumerService.processTransaction(withdrawalMessage, "2", acknowledgment);
+
+        // Then
+        verify(transactionManager, times(2)).getTransaction(definitions.capture());
+        assertThat(definitions.getAllValues().get(1).getPropagationBehavior())
+                .isEqualTo(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        verify(transactionManager).rollback(work);
+        verify(transactionManager).commit(failure);
+        verify(transactionService).updateTransactionStatus(2L, Transaction.TransactionStatus.FAILED,
+                "Insufficient balance");
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void processTransaction_FailedMarkCannotBeWritten_LeavesMessageUnacknowledged() {
+        // Given
+        when(accountService.updateBalance(1L, Money.parse("-50.00", Account.Currency.USD)))
+                .thenThrow(new IllegalArgumentException("Insufficient balance"));
+        doThrow(new RuntimeException("Connection refused")).when(transactionService)
+                .updateTransactionStatus(2L, Transaction.TransactionStatus.FAILED, "Insufficient balance");
+
+        // When / Then
+        assertThatThrownBy(() -> kafkaConsumerService.processTransaction(withdrawalMessage, "2", acknowledgment))
+                .hasMessage("Connection refused");
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void processTransaction_ExchangeType_ProcessesSuccessfully() {
         // When
         kafkaConsumerService.processTransaction(exchangeMessage, "3", acknowledgment);
 
         // Then
-        verify(transactionService).updateTransactionStatus(3L, Transaction.TransactionStatus.PROCESSING, null);
-        verify(accountService).hasValidBalance(1L, Account.Currency.USD, new BigDecimal("100.00"));
-        verify(fxRateService).getExchangeRate("USD", "TRY");
-        verify(userService).getUserById(1L);
-        verify(accountService).createAccount(testUser, Account.Currency.USD);
-        verify(accountService).createAccount(testUser, Account.Currency.TRY);
-        verify(accountService).updateBalance(1L, Account.Currency.USD, new BigDecimal("100.00").negate());
-        verify(accountService).updateBalance(eq(1L), eq(Account.Currency.TRY), any(BigDecimal.class));
+        verify(transactionService).claimForProcessing(List.of(3L));
+        verify(accountService).exchange(1L, Money.parse("100.00", Account.Currency.USD),
+                Money.parse("3325.000000", Account.Currency.TRY));
+        verify(accountService, never()).createAccount(any(User.class), any(Account.Currency.class));
+        verify(accountService, never()).updateBalance(anyLong(), any(Money.class));
+        verify(fxRateService, never()).getExchangeRate(any(Account.Currency.class), any(Account.Currency.class));
         verify(transactionService).updateTransactionStatus(3L, Transaction.TransactionStatus.COMPLETED, null);
         verify(acknowledgment).acknowledge();
     }
@@ -177,29 +264,99 @@ class KafkaConsumerServiceTest {
     @Test
     void processTransaction_ExchangeType_InsufficientBalance_FailsTransaction() {
         // Given
-        when(accountService.hasValidBalance(1L, Account.Currency.USD, new BigDecimal("100.00"))).thenReturn(false);
+        when(accountService.exchange(eq(1L), eq(Money.parse("100.00", Account.Currency.USD)),
+                any(Money.class)))
+                .thenThrow(new IllegalArgumentException("Insufficient balance for exchange. Current: 10.00, Requested: 100.00"));
+
+        // When
+        kafkaConsumerService.processTransaction(exchangeMessage, "3", acknowledgment);
+
+        // Then
+        verify(transactionService).claimForProcessing(List.of(3L));
+        verify(transactionService, never()).updateTransactionStatus(3L, Transaction.TransactionStatus.COMPLETED, null);
+        verify(transactionService).updateTransactionStatus(eq(3L), eq(Transaction.TransactionStatus.FAILED),
+                contains("Insufficient balance"));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void processTransaction_ExchangeType_DescriptionIsNotParsed() {
+        // Given
+        exchangeMessage.description = "Exchange TRY to USD: free text";
 
         // When
         kafkaConsumerService.processTransaction(exchangeMessage, "3", acknowledgment);
 
         // Then
-        verify(transactionService).updateTransactionStatus(3L, Transaction.TransactionStatus.PROCESSING, null);
-        verify(accountService).hasValidBalance(1L, Account.Currency.USD, new BigDecimal("100.00"));
-        verify(fxRateService, never()).getExchangeRate(anyString(), anyString());
-        verify(transactionService).updateTransactionStatus(eq(3L), eq(Transaction.TransactionStatus.FAILED), anyString());
+        verify(accountService).exchange(eq(1L), eq(Money.parse("100.00", Account.Currency.USD)),
+                any(Money.class));
+        verify(transactionService).updateTransactionStatus(3L, Transaction.TransactionStatus.COMPLETED, null);
+    }
+
+    @Test
+    void processTransaction_ExchangeWithoutTargetCurrency_FailsTransaction() {
+        // Given
+        exchangeMessage.toCurrency = null;
+
+        // When
+        kafkaConsumerService.processTransaction(exchangeMessage, "3", acknowledgment);
+
+        // Then
+        verify(accountService, never()).exchange(anyLong(), any(), any());
+        verify(transactionService).updateTransactionStatus(3L, Transaction.TransactionStatus.FAILED,
+                "Exchange transaction has no target currency");
         verify(acknowledgment).acknowledge();
     }
 
     @Test
-    void processTransaction_UnknownTransactionType_FailsTransaction() {
+    void processTransaction_LegacyExchangeWithoutTargetCurrency_ParsesDescriptionAndConvertsAtCurrentRate() {
+        // Given
+        exchangeMessage.toCurrency = null;
+        exchangeMessage.quotedRate = null;
+        exchangeMessage.toAmountMicros = null;
+        exchangeMessage.description = "Exchange USD to TRY: Test exchange";
+        when(fxRateService.getExchangeRate(Account.Currency.USD, Account.Currency.TRY))
+                .thenReturn(new BigDecimal("33.25"));
+
+        // When
+        kafkaConsumerService.processTransaction(exchangeMessage, "3", acknowledgment);
+
+        // Then
+        verify(accountService).exchange(1L, Money.parse("100.00", Account.Currency.USD),
+                Money.parse("3325.00", Account.Currency.TRY));
+        verify(transactionService).recordExchangeSettlement(3L, Account.Currency.TRY, new BigDecimal("33.25"),
+                new BigDecimal("3325.000000"));
+        verify(transactionService).updateTransactionStatus(3L, Transaction.TransactionStatus.COMPLETED, null);
+    }
+
+    @Test
+    void processTransaction_ExchangeWithoutQuotedAmount_ConvertsAtCurrentRate() {
         // Given
-        depositMessage.type = "UNKNOWN";
+        exchangeMessage.quotedRate = null;
+        exchangeMessage.toAmountMicros = null;
+        when(fxRateService.getExchangeRate(Account.Currency.USD, Account.Currency.TRY))
+                .thenReturn(new BigDecimal("33.25"));
+
+        // When
+        kafkaConsumerService.processTransaction(exchangeMessage, "3", acknowledgment);
+
+        // Then
+        verify(accountService).exchange(1L, Money.parse("100.00", Account.Currency.USD),
+                Money.parse("3325.00", Account.Currency.TRY));
+        verify(transactionService).updateTransactionStatus(3L, Transaction.TransactionStatus.COMPLETED, null);
+    }
+
+    @Test
+    void processTransaction_MissingTransactionType_FailsTransaction() {
+        // Given
+        depositMessage.type = null;
 
         // When
         kafkaConsumerService.processTransaction(depositMessage, "1", acknowledgment);
 
         // Then
-        verify(transactionService).updateTransactionStatus(eq(1L), eq(Transaction.TransactionStatus.FAILED), anyString());
+        verify(accountService, never()).updateBalance(anyLong(), any());
+        verify(transactionService).updateTransactionStatus(eq(1L), eq(Transaction.TransactionStatus.FAILED), any());
         verify(acknowledgment).acknowledge();
     }
 
@@ -217,28 +374,255 @@ class KafkaConsumerServiceTest {
     }
 
     @Test
-    void processTransaction_InvalidCurrency_FailsTransaction() {
+    void processTransaction_MissingCurrency_FailsTransaction() {
         // Given
-        depositMessage.currency = "INVALID";
+        depositMessage.currency = null;
 
         // When
         kafkaConsumerService.processTransaction(depositMessage, "1", acknowledgment);
 
         // Then
-        verify(transactionService).updateTransactionStatus(eq(1L), eq(Transaction.TransactionStatus.FAILED), contains("No enum constant"));
+        verify(transactionService).updateTransactionStatus(1L, Transaction.TransactionStatus.FAILED,
+                "Currency is required");
         verify(acknowledgment).acknowledge();
     }
 
     @Test
-    void processTransaction_InvalidAmount_FailsTransaction() {
+    void processTransactionBatch_AllSucceed_CompletesEachAndAcknowledgesOnce() {
         // Given
-        depositMessage.amount = "invalid_amount";
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userService.getUserById(1L)).thenReturn(testUser);
 
         // When
-        kafkaConsumerService.processTransaction(depositMessage, "1", acknowledgment);
+        kafkaConsumerService.processTransactionBatch(List.of(depositMessage, withdrawalMessage), acknowledgment);
 
         // Then
-        verify(transactionService).updateTransactionStatus(eq(1L), eq(Transaction.TransactionStatus.FAILED), anyString());
+        verify(accountService).updateBalance(1L, Money.parse("100.00", Account.Currency.USD));
+        verify(accountService).updateBalance(1L, Money.parse("-50.00", Account.Currency.USD));
+        verify(transactionService).updateTransactionStatus(1L, Transaction.TransactionStatus.COMPLETED, null);
+        verify(transactionService).updateTransactionStatus(2L, Transaction.TransactionStatus.COMPLETED, null);
+        verify(entityManager, never()).clear();
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
+    @Test
+    void processTransactionBatch_OneMessageFails_IsolatesFailureAndCompletesOthers() {
+        // Given
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userService.getUserById(1L)).thenReturn(testUser);
+        when(accountService.updateBalance(1L, Money.parse("-50.00", Account.Currency.USD)))
+                .thenThrow(new IllegalArgumentException("Insufficient balance"));
+
+        // When
+        kafkaConsumerService.processTransactionBatch(List.of(withdrawalMessage, depositMessage), acknowledgment);
+
+        // Then
+        verify(transactionService).updateTransactionStatus(eq(2L), eq(Transaction.TransactionStatus.FAILED), anyString());
+        verify(entityManager).clear();
+        verify(accountService).updateBalance(1L, Money.parse("100.00", Account.Currency.USD));
+        verify(transactionService).updateTransactionStatus(1L, Transaction.TransactionStatus.COMPLETED, null);
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
+    @Test
+    void processTransactionBatch_FailedMarkFails_DiscardsRolledBackStatusEvent() {
+        // Given
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(accountService.updateBalance(1L, Money.parse("-50.00", Account.Currency.USD)))
+                .thenThrow(new IllegalArgumentException("Insufficient balance"));
+        when(transactionService.updateTransactionStatus(eq(2L), eq(Transaction.TransactionStatus.FAILED), anyString()))
+                .thenThrow(new RuntimeException("Database unavailable"));
+
+        // When
+        kafkaConsumerService.processTransactionBatch(List.of(withdrawalMessage), acknowledgment);
+
+        // Then
+        verify(transactionStatusPublisher).discardPending(2L);
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
+    @Test
+    void processTransactionBatch_BatchCommitFails_DoesNotAcknowledge() {
+        // Given
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userService.getUserById(1L)).thenReturn(testUser);
+        doThrow(new RuntimeException("Commit failed")).when(transactionManager).commit(any());
+
+        // When / Then
+        assertThatThrownBy(() -> kafkaConsumerService.processTransactionBatch(List.of(depositMessage), acknowledgment))
+                .isInstanceOf(RuntimeException.class);
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void processTransactionBatch_ConsecutiveDeposits_AppliesSingleNettedBalanceWrite() {
+        // Given
+        KafkaProducerService.TransactionMessage secondDeposit = copyOf(depositMessage, 4L);
+        KafkaProducerService.TransactionMessage thirdDeposit = copyOf(depositMessage, 5L);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userService.getUserById(1L)).thenReturn(testUser);
+
+        // When
+        kafkaConsumerService.processTransactionBatch(
+                List.of(depositMessage, secondDeposit, thirdDeposit, withdrawalMessage), acknowledgment);
+
+        // Then
+        verify(accountService).createAccount(testUser, Account.Currency.USD);
+        verify(accountService).updateBalance(1L, Money.parse("300.00", Account.Currency.USD));
+        verify(transactionService).completeTransactions(1L, Transaction.TransactionType.DEPOSIT, List.of(1L, 4L, 5L));
+        verify(accountService).updateBalance(1L, Money.parse("-50.00", Account.Currency.USD));
+        verify(transactionService).updateTransactionStatus(2L, Transaction.TransactionStatus.COMPLETED, null);
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
+    @Test
+    void processTransactionBatch_NettedWriteFails_FallsBackToIndividualDeposits() {
+        // Given
+        KafkaProducerService.TransactionMessage secondDeposit = copyOf(depositMessage, 4L);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userService.getUserById(1L)).thenReturn(testUser);
+        doThrow(new IllegalArgumentException("Transactions not found"))
+                .when(transactionService)
+                .completeTransactions(1L, Transaction.TransactionType.DEPOSIT, List.of(1L, 4L));
+
+        // When
+        kafkaConsumerService.processTransactionBatch(List.of(depositMessage, secondDeposit), acknowledgment);
+
+        // Then
+        verify(entityManager).clear();
+        verify(accountService, times(2)).updateBalance(1L, Money.parse("100.00", Account.Currency.USD));
+        verify(transactionService).updateTransactionStatus(1L, Transaction.TransactionStatus.COMPLETED, null);
+        verify(transactionService).updateTransactionStatus(4L, Transaction.TransactionStatus.COMPLETED, null);
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
+    @Test
+    void processTransactionBatch_NettedDepositAlreadyApplied_AppliesOnlyTheOthers() {
+        // Given
+        KafkaProducerService.TransactionMessage secondDeposit = copyOf(depositMessage, 4L);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userService.getUserById(1L)).thenReturn(testUser);
+        when(transactionService.claimForProcessing(List.of(1L, 4L))).thenReturn(1);
+        when(transactionService.claimForProcessing(List.of(1L))).thenReturn(0);
+
+        // When
+        kafkaConsumerService.processTransactionBatch(List.of(depositMessage, secondDeposit), acknowledgment);
+
+        // Then
+        verify(accountService, never()).updateBalance(1L, Money.parse("200.00", Account.Currency.USD));
+        verify(accountService, times(1)).updateBalance(1L, Money.parse("100.00", Account.Currency.USD));
+        verify(transactionService, never()).updateTransactionStatus(1L, Transaction.TransactionStatus.COMPLETED, null);
+        verify(transactionService).updateTransactionStatus(4L, Transaction.TransactionStatus.COMPLETED, null);
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
+    private KafkaProducerService.TransactionMessage copyOf(KafkaProducerService.TransactionMessage source, Long id) {
+        KafkaProducerService.TransactionMessage message = new KafkaProducerService.TransactionMessage();
+        message.id = id;
+        message.userId = source.userId;
+        message.type = source.type;
+        message.currency = source.currency;
+        message.amountMicros = source.amountMicros;
+        message.toCurrency = source.toCurrency;
+        message.quotedRate = source.quotedRate;
+        message.toAmountMicros = source.toAmountMicros;
+        message.status = source.status;
+        message.description = source.description;
+        return message;
+    }
+
+    @Test
+    void processTransactionInUserLane_RunsInUserLaneAndAcknowledgesWhenDone() {
+        // Given
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userService.getUserById(1L)).thenReturn(testUser);
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+
+        // When
+        kafkaConsumerService.processTransactionInUserLane(depositMessage, acknowledgment);
+
+        // Then
+        verify(keyOrderedExecutor).submit(eq("1"), task.capture());
+        verify(acknowledgment, never()).acknowledge();
+
+        task.getValue().run();
+
+        verify(accountService).updateBalance(1L, Money.parse("100.00", Account.Currency.USD));
+        verify(transactionService).updateTransactionStatus(1L, Transaction.TransactionStatus.COMPLETED, null);
         verify(acknowledgment).acknowledge();
     }
-} 
\ No newline at end of file
+
+    @Test
+    void processTransactionInUserLane_DatabaseUnavailable_RetriesBeforeAcknowledging() throws Exception {
+        // Given
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userService.getUserById(1L)).thenReturn(testUser);
+        doThrow(new RuntimeException("Connection refused"))
+                .doThrow(new RuntimeException("Connection refused"))
+                .doNothing()
+                .when(transactionManager).commit(any());
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+
+        // When
+        kafkaConsumerService.processTransactionInUserLane(depositMessage, acknowledgment);
+        verify(keyOrderedExecutor).submit(eq("1"), task.capture());
+        task.getValue().run();
+
+        // Then
+        verify(accountService, times(2)).updateBalance(1L, Money.parse("100.00", Account.Currency.USD));
+        verify(transactionManager, times(3)).commit(any());
+        verify(keyOrderedExecutor, times(2)).backOff(Duration.ZERO);
+        verify(acknowledgment, times(1)).acknowledge();
+        verify(kafkaProducerService, never()).sendToDeadLetter(anyString(), any());
+    }
+
+    @Test
+    void processTransactionInUserLane_StatusNeverWritten_DeadLettersAndAcknowledgesAfterMaxAttempts()
+            throws Exception {
+        // Given
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userService.getUserById(1L)).thenReturn(testUser);
+        when(transactionService.updateTransactionStatus(eq(1L), eq(Transaction.TransactionStatus.COMPLETED), any()))
+                .thenThrow(new IllegalArgumentException("Transaction not found"));
+        when(transactionService.updateTransactionStatus(eq(1L), eq(Transaction.TransactionStatus.FAILED), any()))
+                .thenThrow(new IllegalArgumentException("Transaction not found"));
+        when(kafkaProducerService.sendToDeadLetter("1", depositMessage))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+
+        // When
+        kafkaConsumerService.processTransactionInUserLane(depositMessage, acknowledgment);
+        verify(keyOrderedExecutor).submit(eq("1"), task.capture());
+        task.getValue().run();
+
+        // Then
+        verify(transactionService, times(3))
+                .updateTransactionStatus(1L, Transaction.TransactionStatus.FAILED, "Transaction not found");
+        verify(keyOrderedExecutor, times(2)).backOff(Duration.ZERO);
+        verify(kafkaProducerService).sendToDeadLetter("1", depositMessage);
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void processTransactionInUserLane_InterruptedWhileRetrying_LeavesMessageUnacknowledged() throws Exception {
+        // Given
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userService.getUserById(1L)).thenReturn(testUser);
+        doThrow(new RuntimeException("Connection refused")).when(transactionManager).commit(any());
+        doThrow(new InterruptedException()).when(keyOrderedExecutor).backOff(any());
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+
+        // When
+        kafkaConsumerService.processTransactionInUserLane(depositMessage, acknowledgment);
+        verify(keyOrderedExecutor).submit(eq("1"), task.capture());
+        try {
+            task.getValue().run();
+        } finally {
+            Thread.interrupted();
+        }
+
+        // Then
+        verify(acknowledgment, never()).acknowledge();
+        verify(kafkaProducerService, never()).sendToDeadLetter(anyString(), any());
+    }
+}
@@ -17,12 +17,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.concurrent.CompletableFuture;
 
-import static org.assertj.core.api.Assertions.assertThatCode;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,6 +38,7 @@ class KafkaProducerServiceTest {
     @BeforeEach
     void setUp() {
         ReflectionTestUtils.setField(kafkaProducerService, "transactionTopic", "test.wallet.txn");
+        ReflectionTestUtils.setField(kafkaProducerService, "deadLetterTopic", "test.wallet.txn.DLT");
 
         testUser = User.builder()
                 .id(1L)
@@ -67,19 +63,21 @@ class KafkaProducerServiceTest {
     }
 
     @Test
-    void sendTransactionMessage_SendsMessageSuccessfully() {
-        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(future);
-
-        kafkaProducerService.sendTransactionMessage(testTransaction);
+    void send_PublishesToTransactionTopicWithGivenKey() {
+        KafkaProducerService.TransactionMessage message =
+                KafkaProducerService.TransactionMessage.fromEntity(testTransaction);
+        when(kafkaTemplate.send("test.wallet.txn", "1", message)).thenReturn(future);
 
-        verify(kafkaTemplate).send(eq("test.wallet.txn"), eq("1"), any(KafkaProducerService.TransactionMessage.class));
-        verify(future).whenComplete(any());
+        assertThat(kafkaProducerService.send("1", message)).isSameAs(future);
     }
 
     @Test
-    void sendTransactionMessage_WithNullTransaction_HandlesGracefully() {
-        assertThatCode(() -> kafkaProducerService.sendTransactionMessage(null))
-                .isInstanceOf(NullPointerException.class);
+    void sendToDeadLetter_PublishesToDeadLetterTopic() {
+        KafkaProducerService.TransactionMessage message =
+                KafkaProducerService.TransactionMessage.fromEntity(testTransaction);
+        when(kafkaTemplate.send("test.wallet.txn.DLT", "1", message)).thenReturn(future);
+
+        assertThat(kafkaProducerService.sendToDeadLetter("1", message)).isSameAs(future);
     }
 
     @Test
@@ -89,43 +87,13 @@ class KafkaProducerServiceTest {
 
         assert message.id.equals(1L);
         assert message.userId.equals(1L);
-        assert message.type.equals("DEPOSIT");
-        assert message.currency.equals("USD");
-        assert message.amount.equals("100.00");
-        assert message.status.equals("PENDING");
+        assert message.type == Transaction.TransactionType.DEPOSIT;
+        assert message.currency == Account.Currency.USD;
+        assert message.amountMicros == 100_000_000L;
+        assert message.toAmountMicros == null;
+        assert message.status == Transaction.TransactionStatus.PENDING;
         assert message.description.equals("Test deposit");
         assert message.idempotencyKey.equals("test-key-123");
         assert message.externalReference.equals("TXN-12345678");
     }
-
-    @Test
-    void sendTransactionMessage_WithKafkaTemplateException_HandlesGracefully() {
-        when(kafkaTemplate.send(anyString(), anyString(), any()))
-                .thenThrow(new RuntimeException("Kafka error"));
-
-        kafkaProducerService.sendTransactionMessage(testTransaction);
-
-        verify(kafkaTemplate).send(anyString(), anyString(), any());
-    }
-
-    @Test
-    void sendTransactionMessage_WithDifferentTransactionTypes_SendsCorrectMessage() {
-        Transaction withdrawalTransaction = testTransaction.toBuilder()
-                .type(Transaction.TransactionType.WITHDRAWAL)
-                .build();
-
-        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(future);
-
-        kafkaProducerService.sendTransactionMessage(withdrawalTransaction);
-
-        verify(kafkaTemplate).send(eq("test.wallet.txn"), eq("1"), any(KafkaProducerService.TransactionMessage.class));
-
-        Transaction exchangeTransaction = testTransaction.toBuilder()
-                .type(Transaction.TransactionType.EXCHANGE)
-                .build();
-
-        kafkaProducerService.sendTransactionMessage(exchangeTransaction);
-
-        verify(kafkaTemplate, times(2)).send(eq("test.wallet.txn"), eq("1"), any(KafkaProducerService.TransactionMessage.class));
-    }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,120 @@
+package com.finance.wallet.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class KeyOrderedExecutorTest {
+
+    private KeyOrderedExecutor keyOrderedExecutor;
+
+    @BeforeEach
+    void setUp() {
+        keyOrderedExecutor = new KeyOrderedExecutor(4, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        keyOrderedExecutor.destroy();
+    }
+
+    @Test
+    void submit_SameKey_RunsTasksInSubmissionOrder() {
+        List<Integer> executed = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < 50; i++) {
+            int task = i;
+            last = keyOrderedExecutor.submit("1", () -> {
+                sleepQuietly(task % 3);
+                executed.add(task);
+            });
+        }
+        last.join();
+
+        assertThat(executed).hasSize(50);
+        assertThat(executed).isSorted();
+    }
+
+    @Test
+    void submit_DifferentKeys_RunConcurrently() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = keyOrderedExecutor.submit("1", () -> awaitTogether(bothStarted, release));
+        CompletableFuture<Void> second = keyOrderedExecutor.submit("2", () -> awaitTogether(bothStarted, release));
+
+        assertThat(bothStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+        CompletableFuture.allOf(first, second).join();
+    }
+
+    @Test
+    void backOff_ReleasesPermitWhileWaiting() throws Exception {
+        KeyOrderedExecutor singlePermit = new KeyOrderedExecutor(1, Duration.ofMillis(100));
+        CountDownLatch otherLaneDone = new CountDownLatch(1);
+
+        try {
+            CompletableFuture<Void> backingOff = singlePermit.submit("1", () -> {
+                try {
+                    singlePermit.backOff(Duration.ofSeconds(5));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            singlePermit.submit("2", otherLaneDone::countDown);
+
+            assertThat(otherLaneDone.await(3, TimeUnit.SECONDS)).isTrue();
+            assertThat(backingOff).isNotDone();
+        } finally {
+            singlePermit.destroy();
+        }
+    }
+
+    @Test
+    void submit_FailedTask_DoesNotBlockLaterTasksOfSameKey() {
+        List<String> executed = new CopyOnWriteArrayList<>();
+
+        keyOrderedExecutor.submit("1", () -> {
+            throw new IllegalStateException("boom");
+        });
+        keyOrderedExecutor.submit("1", () -> executed.add("after failure")).join();
+
+        assertThat(executed).containsExactly("after failure");
+    }
+
+    @Test
+    void submit_CompletedLanes_AreRemoved() {
+        keyOrderedExecutor.submit("1", () -> { }).join();
+        keyOrderedExecutor.submit("2", () -> { }).join();
+
+        await().atMost(Duration.ofSeconds(1)).until(() -> keyOrderedExecutor.activeLanes() == 0);
+    }
+
+    private static void awaitTogether(CountDownLatch bothStarted, CountDownLatch release) {
+        bothStarted.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
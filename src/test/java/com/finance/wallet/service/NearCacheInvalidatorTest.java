@@ -0,0 +1,82 @@
+package com.finance.wallet.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class NearCacheInvalidatorTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    private NearCache<Long, String> nearCache;
+
+    private NearCacheInvalidator nearCacheInvalidator;
+
+    @BeforeEach
+    void setUp() {
+        nearCache = new NearCache<>("users-by-id", 100, Duration.ofMinutes(1), Long::valueOf);
+        nearCacheInvalidator = new NearCacheInvalidator(redisTemplate, List.of(nearCache));
+    }
+
+    @Test
+    void invalidate_EvictsLocallyAndPublishes() {
+        nearCache.get(1L, key -> "John Doe");
+
+        nearCacheInvalidator.invalidate(nearCache, 1L);
+
+        assertThat(nearCache.getCache().getIfPresent(1L)).isNull();
+        verify(redisTemplate).convertAndSend(NearCacheInvalidator.CHANNEL, "users-by-id:1");
+    }
+
+    @Test
+    void invalidate_PublishFails_StillEvictsLocally() {
+        nearCache.get(1L, key -> "John Doe");
+        doThrow(new RedisConnectionFailureException("Redis down"))
+                .when(redisTemplate).convertAndSend(NearCacheInvalidator.CHANNEL, "users-by-id:1");
+
+        nearCacheInvalidator.invalidate(nearCache, 1L);
+
+        assertThat(nearCache.getCache().getIfPresent(1L)).isNull();
+    }
+
+    @Test
+    void onMessage_KnownCache_EvictsEntry() {
+        nearCache.get(1L, key -> "John Doe");
+        nearCache.get(2L, key -> "Jane Doe");
+
+        nearCacheInvalidator.onMessage(message("users-by-id:1"), null);
+
+        assertThat(nearCache.getCache().getIfPresent(1L)).isNull();
+        assertThat(nearCache.getCache().getIfPresent(2L)).isEqualTo("Jane Doe");
+    }
+
+    @Test
+    void onMessage_UnknownCacheOrMalformedKey_IsIgnored() {
+        nearCache.get(1L, key -> "John Doe");
+
+        nearCacheInvalidator.onMessage(message("balances:1"), null);
+        nearCacheInvalidator.onMessage(message("users-by-id:not-a-number"), null);
+
+        assertThat(nearCache.getCache().getIfPresent(1L)).isEqualTo("John Doe");
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(NearCacheInvalidator.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,197 @@
+package com.finance.wallet.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.OutboxMessage;
+import com.finance.wallet.entity.Transaction;
+import com.finance.wallet.entity.User;
+import com.finance.wallet.repository.OutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxServiceTest {
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private OutboxService outboxService;
+
+    private Transaction testTransaction;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(outboxService, "batchSize", 500);
+        ReflectionTestUtils.setField(outboxService, "maxRowsPerKey", 20);
+        ReflectionTestUtils.setField(outboxService, "sendTimeoutMs", 1000L);
+
+        User testUser = User.builder()
+                .id(7L)
+                .name("John Doe")
+                .email("john.doe@example.com")
+                .build();
+
+        testTransaction = Transaction.builder()
+                .id(1L)
+                .user(testUser)
+                .type(Transaction.TransactionType.DEPOSIT)
+                .currency(Account.Currency.USD)
+                .amount(new BigDecimal("100.00"))
+                .status(Transaction.TransactionStatus.PENDING)
+                .externalReference("TXN-12345678")
+                .build();
+    }
+
+    @Test
+    void enqueue_SavesMessageKeyedByUser() throws Exception {
+        outboxService.enqueue(testTransaction);
+
+        ArgumentCaptor<OutboxMessage> captor = ArgumentCaptor.forClass(OutboxMessage.class);
+        verify(outboxRepository).save(captor.capture());
+        OutboxMessage saved = captor.getValue();
+        assertThat(saved.getTransactionId()).isEqualTo(1L);
+        assertThat(saved.getMessageKey()).isEqualTo("7");
+
+        KafkaProducerService.TransactionMessage payload =
+                objectMapper.readValue(saved.getPayload(), KafkaProducerService.TransactionMessage.class);
+        assertThat(payload.id).isEqualTo(1L);
+        assertThat(payload.amount).isEqualTo("100.00");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void enqueueAll_InsertsOneMessagePerTransactionInOneBatch() {
+        Transaction second = testTransaction.toBuilder().id(2L).build();
+
+        outboxService.enqueueAll(List.of(testTransaction, second));
+
+        ArgumentCaptor<List<OutboxMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).insertAll(captor.capture());
+        assertThat(captor.getValue()).extracting(OutboxMessage::getTransactionId).containsExactly(1L, 2L);
+        verify(outboxRepository, never()).save(any(OutboxMessage.class));
+    }
+
+    @Test
+    void relayBatch_AllSendsAcknowledged_DeletesRelayedRows() throws Exception {
+        OutboxMessage first = outboxMessage(10L, 1L);
+        OutboxMessage second = outboxMessage(11L, 2L);
+        when(outboxRepository.lockNextBatch(500, 20)).thenReturn(List.of(first, second));
+        when(kafkaProducerService.send(eq("7"), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        int relayed = outboxService.relayBatch();
+
+        assertThat(relayed).isEqualTo(2);
+        verify(kafkaProducerService).flush();
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(10L, 11L));
+    }
+
+    @Test
+    void relayBatch_FailedSend_HoldsBackLaterRowsOfSameKey() throws Exception {
+        OutboxMessage first = outboxMessage(10L, 1L);
+        OutboxMessage second = outboxMessage(11L, 2L);
+        when(outboxRepository.lockNextBatch(500, 20)).thenReturn(List.of(first, second));
+        when(kafkaProducerService.send(eq("7"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Kafka error")));
+
+        int relayed = outboxService.relayBatch();
+
+        assertThat(relayed).isZero();
+        verify(kafkaProducerService, times(1)).send(eq("7"), any());
+        verify(outboxRepository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    @Test
+    void relayBatch_FailedSend_StillRelaysOtherKeys() throws Exception {
+        OutboxMessage failing = outboxMessage(10L, 1L);
+        OutboxMessage other = outboxMessage(11L, 2L);
+        other.setMessageKey("8");
+        when(outboxRepository.lockNextBatch(500, 20)).thenReturn(List.of(failing, other));
+        when(kafkaProducerService.send(eq("7"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Kafka error")));
+        when(kafkaProducerService.send(eq("8"), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        int relayed = outboxService.relayBatch();
+
+        assertThat(relayed).isEqualTo(1);
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(11L));
+    }
+
+    @Test
+    void relayBatch_SameKey_SendsNextRowOnlyAfterPreviousIsAcknowledged() throws Exception {
+        OutboxMessage first = outboxMessage(10L, 1L);
+        OutboxMessage second = outboxMessage(11L, 2L);
+        OutboxMessage other = outboxMessage(12L, 3L);
+        other.setMessageKey("8");
+        when(outboxRepository.lockNextBatch(500, 20)).thenReturn(List.of(first, second, other));
+        when(kafkaProducerService.send(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        int relayed = outboxService.relayBatch();
+
+        ArgumentCaptor<KafkaProducerService.TransactionMessage> sent =
+                ArgumentCaptor.forClass(KafkaProducerService.TransactionMessage.class);
+        InOrder inOrder = inOrder(kafkaProducerService);
+        inOrder.verify(kafkaProducerService).send(eq("7"), sent.capture());
+        inOrder.verify(kafkaProducerService).send(eq("8"), sent.capture());
+        inOrder.verify(kafkaProducerService).flush();
+        inOrder.verify(kafkaProducerService).send(eq("7"), sent.capture());
+        inOrder.verify(kafkaProducerService).flush();
+        assertThat(sent.getAllValues()).extracting(message -> message.id).containsExactly(1L, 3L, 2L);
+        assertThat(relayed).isEqualTo(3);
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(10L, 12L, 11L));
+    }
+
+    @Test
+    void relayBatch_EmptyOutbox_SendsNothing() {
+        when(outboxRepository.lockNextBatch(500, 20)).thenReturn(Collections.emptyList());
+
+        int relayed = outboxService.relayBatch();
+
+        assertThat(relayed).isZero();
+        verify(kafkaProducerService, never()).flush();
+        verify(outboxRepository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    private OutboxMessage outboxMessage(Long id, Long transactionId) throws Exception {
+        Transaction transaction = testTransaction.toBuilder().id(transactionId).build();
+        return OutboxMessage.builder()
+                .id(id)
+                .transactionId(transactionId)
+                .messageKey("7")
+                .payload(objectMapper.writeValueAsString(KafkaProducerService.TransactionMessage.fromEntity(transaction)))
+                .build();
+    }
+}
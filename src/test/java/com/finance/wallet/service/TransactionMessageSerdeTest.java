@@ -0,0 +1,157 @@
+package com.finance.wallet.service;
+
+import com.finance.wallet.entity.Account;
+import com.finance.wallet.entity.Transaction;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionMessageSerdeTest {
+
+    private TransactionMessageSerializer serializer;
+    private TransactionMessageDeserializer deserializer;
+    private KafkaProducerService.TransactionMessage message;
+
+    @BeforeEach
+    void setUp() {
+        serializer = new TransactionMessageSerializer();
+        serializer.configure(Map.of(), false);
+        deserializer = new TransactionMessageDeserializer();
+
+        message = new KafkaProducerService.TransactionMessage();
+        message.id = 1L;
+        message.userId = 7L;
+        message.type = Transaction.TransactionType.EXCHANGE;
+        message.currency = Account.Currency.USD;
+        message.amountMicros = 100_250_000L;
+        message.toCurrency = Account.Currency.TRY;
+        message.quotedRate = new BigDecimal("33.2500000000000001");
+        message.toAmountMicros = 3_333_312_500L;
+        message.status = Transaction.TransactionStatus.PENDING;
+        message.description = "Exchange USD to TRY: café";
+        message.idempotencyKey = "test-key-123";
+        message.externalReference = "TXN-12345678";
+    }
+
+    @Test
+    void binary_RoundTrip_PreservesAllFields() {
+        KafkaProducerService.TransactionMessage result =
+                deserializer.deserialize("wallet.txn", serializer.serialize("wallet.txn", message));
+
+        assertThat(result).usingRecursiveComparison().isEqualTo(message);
+    }
+
+    @Test
+    void binary_RoundTrip_WithoutOptionalFields() {
+        message.description = null;
+        message.idempotencyKey = null;
+        message.externalReference = null;
+        message.toCurrency = null;
+        message.quotedRate = null;
+        message.toAmountMicros = null;
+
+        byte[] data = serializer.serialize("wallet.txn", message);
+        KafkaProducerService.TransactionMessage result = deserializer.deserialize("wallet.txn", data);
+
+        assertThat(result).usingRecursiveComparison().isEqualTo(message);
+        assertThat(data).hasSizeLessThan(40);
+    }
+
+    @Test
+    void deserialize_VersionTwoRecord_ReadsOrdinalsAndDecimalAmounts() {
+        byte[] description = message.description.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer legacy = ByteBuffer.allocate(128)
+                .put((byte) 0)
+                .put((byte) 2)
+                .put((byte) (TransactionMessageSerializer.HAS_ID | TransactionMessageSerializer.HAS_DESCRIPTION
+                        | TransactionMessageSerializer.HAS_TO_CURRENCY | TransactionMessageSerializer.HAS_QUOTED_RATE
+                        | TransactionMessageSerializer.HAS_TO_AMOUNT))
+                .putLong(1L)
+                .putLong(7L)
+                .put((byte) 2)
+                .put((byte) 0)
+                .put((byte) 0)
+                .put((byte) 2).putLong(10025L)
+                .putInt(description.length).put(description)
+                .put((byte) 1)
+                .put((byte) 8).putLong(3325000000L)
+                .put((byte) 6).putLong(3333312500L);
+
+        KafkaProducerService.TransactionMessage result =
+                deserializer.deserialize("wallet.txn", Arrays.copyOf(legacy.array(), legacy.position()));
+
+        assertThat(result.type).isEqualTo(Transaction.TransactionType.EXCHANGE);
+        assertThat(result.currency).isEqualTo(Account.Currency.USD);
+        assertThat(result.status).isEqualTo(Transaction.TransactionStatus.PENDING);
+        assertThat(result.amountMicros).isEqualTo(100_250_000L);
+        assertThat(result.description).isEqualTo(message.description);
+        assertThat(result.toCurrency).isEqualTo(Account.Currency.TRY);
+        assertThat(result.quotedRate).isEqualByComparingTo("33.25");
+        assertThat(result.toAmountMicros).isEqualTo(3_333_312_500L);
+    }
+
+    @Test
+    void deserialize_UnknownCurrencyCode_ThrowsException() {
+        byte[] data = serializer.serialize("wallet.txn", message);
+        // Currency code follows magic, version, flags, id, userId, type and status
+        int currencyOffset = 3 + 2 * Long.BYTES + 2;
+        data[currencyOffset] = 'X';
+        data[currencyOffset + 1] = 'X';
+        data[currencyOffset + 2] = 'X';
+
+        assertThatThrownBy(() -> deserializer.deserialize("wallet.txn", data))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("Malformed transaction message");
+    }
+
+    @Test
+    void deserialize_JsonRecord_FallsBackToJson() {
+        byte[] json = ("{\"id\":1,\"userId\":7,\"type\":\"DEPOSIT\",\"currency\":\"TRY\",\"amount\":\"50.00\","
+                + "\"status\":\"PENDING\"}").getBytes(StandardCharsets.UTF_8);
+
+        KafkaProducerService.TransactionMessage result = deserializer.deserialize("wallet.txn", json);
+
+        assertThat(result.id).isEqualTo(1L);
+        assertThat(result.type).isEqualTo(Transaction.TransactionType.DEPOSIT);
+        assertThat(result.currency).isEqualTo(Account.Currency.TRY);
+        assertThat(result.amountMicros).isEqualTo(50_000_000L);
+        assertThat(result.toAmountMicros).isNull();
+    }
+
+    @Test
+    void serialize_JsonFormatConfigured_WritesJson() {
+        serializer.configure(Map.of(TransactionMessageSerializer.FORMAT_CONFIG, "json"), false);
+
+        byte[] data = serializer.serialize("wallet.txn", message);
+
+        assertThat(new String(data, StandardCharsets.UTF_8)).startsWith("{");
+        assertThat(deserializer.deserialize("wallet.txn", data)).usingRecursiveComparison().isEqualTo(message);
+    }
+
+    @Test
+    void deserialize_UnknownVersion_ThrowsException() {
+        byte[] data = serializer.serialize("wallet.txn", message);
+        data[1] = 99;
+
+        assertThatThrownBy(() -> deserializer.deserialize("wallet.txn", data))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("Unsupported transaction message version: 99");
+    }
+
+    @Test
+    void deserialize_TruncatedRecord_ThrowsException() {
+        byte[] data = serializer.serialize("wallet.txn", message);
+
+        assertThatThrownBy(() -> deserializer.deserialize("wallet.txn", Arrays.copyOf(data, data.length - 3)))
+                .isInstanceOf(SerializationException.class);
+    }
+}
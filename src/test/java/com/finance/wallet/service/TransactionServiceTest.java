@@ -1,8 +1,14 @@
 package com.finance.wallet.service;
 
+import com.finance.wallet.dto.BatchTransactionItem;
+import com.finance.wallet.dto.BatchTransactionResponse;
 import com.finance.wallet.dto.DepositRequest;
 import com.finance.wallet.dto.ExchangeRequest;
+import com.finance.wallet.dto.TransactionHistoryFilter;
+import com.finance.wallet.dto.TransactionHistoryPage;
 import com.finance.wallet.dto.TransactionResponse;
+import com.finance.wallet.dto.TransactionStatusEvent;
+import com.finance.wallet.dto.TransactionStatusResponse;
 import com.finance.wallet.dto.WithdrawalRequest;
 import com.finance.wallet.entity.Account;
 import com.finance.wallet.entity.Transaction;
@@ -11,20 +17,30 @@ import com.finance.wallet.repository.TransactionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -39,7 +55,13 @@ class TransactionServiceTest {
     private UserService userService;
 
     @Mock
-    private KafkaProducerService kafkaProducerService;
+    private OutboxService outboxService;
+
+    @Mock
+    private FxQuoteService fxQuoteService;
+
+    @Mock
+    private TransactionStatusPublisher transactionStatusPublisher;
 
     @InjectMocks
     private TransactionService transactionService;
@@ -52,6 +74,9 @@ class TransactionServiceTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(transactionService, "maxHistoryPageSize", 200);
+        ReflectionTestUtils.setField(transactionService, "maxBatchItems", 1000);
+
         testUser = User.builder()
                 .id(1L)
                 .name("John Doe")
@@ -92,6 +117,7 @@ class TransactionServiceTest {
                 Account.Currency.USD,
                 Account.Currency.TRY,
                 new BigDecimal("100.00"),
+                "quote-123",
                 "Test exchange"
         );
     }
@@ -110,7 +136,7 @@ class TransactionServiceTest {
 
         verify(userService).getUserById(1L);
         verify(transactionRepository).save(any(Transaction.class));
-        verify(kafkaProducerService).sendTransactionMessage(any(Transaction.class));
+        verify(outboxService).enqueue(any(Transaction.class));
         verify(transactionRepository, never()).findByIdempotencyKey(anyString());
     }
 
@@ -128,7 +154,7 @@ class TransactionServiceTest {
         verify(transactionRepository).findByIdempotencyKey(idempotencyKey);
         verify(userService, never()).getUserById(any());
         verify(transactionRepository, never()).save(any(Transaction.class));
-        verify(kafkaProducerService, never()).sendTransactionMessage(any(Transaction.class));
+        verify(outboxService, never()).enqueue(any(Transaction.class));
     }
 
     @Test
@@ -147,7 +173,7 @@ class TransactionServiceTest {
         verify(transactionRepository).findByIdempotencyKey(idempotencyKey);
         verify(userService).getUserById(1L);
         verify(transactionRepository).save(any(Transaction.class));
-        verify(kafkaProducerService).sendTransactionMessage(any(Transaction.class));
+        verify(outboxService).enqueue(any(Transaction.class));
     }
 
     @Test
@@ -166,65 +192,157 @@ class TransactionServiceTest {
 
         verify(userService).getUserById(1L);
         verify(transactionRepository).save(any(Transaction.class));
-        verify(kafkaProducerService).sendTransactionMessage(any(Transaction.class));
+        verify(outboxService).enqueue(any(Transaction.class));
     }
 
     @Test
     void createExchangeTransaction_CreatesTransactionSuccessfully() {
         Transaction exchangeTransaction = testTransaction.toBuilder()
                 .type(Transaction.TransactionType.EXCHANGE)
-                .description("Exchange USD to TRY: Test exchange")
+                .toCurrency(Account.Currency.TRY)
+                .description("Test exchange")
                 .build();
         
         when(userService.getUserById(1L)).thenReturn(testUser);
+        when(fxQuoteService.redeemQuote("quote-123", 1L, Account.Currency.USD, Account.Currency.TRY))
+                .thenReturn(new BigDecimal("33.25"));
         when(transactionRepository.save(any(Transaction.class))).thenReturn(exchangeTransaction);
 
         TransactionResponse result = transactionService.createExchangeTransaction(exchangeRequest, null);
 
         assertThat(result).isNotNull();
         assertThat(result.getType()).isEqualTo(Transaction.TransactionType.EXCHANGE);
+        assertThat(result.getToCurrency()).isEqualTo(Account.Currency.TRY);
 
+        ArgumentCaptor<Transaction> saved = ArgumentCaptor.forClass(Transaction.class);
         verify(userService).getUserById(1L);
-        verify(transactionRepository).save(any(Transaction.class));
-        verify(kafkaProducerService).sendTransactionMessage(any(Transaction.class));
+        verify(transactionRepository).save(saved.capture());
+        assertThat(saved.getValue().getCurrency()).isEqualTo(Account.Currency.USD);
+        assertThat(saved.getValue().getToCurrency()).isEqualTo(Account.Currency.TRY);
+        assertThat(saved.getValue().getDescription()).isEqualTo("Test exchange");
+        assertThat(saved.getValue().getQuotedRate()).isEqualByComparingTo("33.25");
+        assertThat(saved.getValue().getToAmount()).isEqualByComparingTo("3325.000000");
+        verify(outboxService).enqueue(any(Transaction.class));
+    }
+
+    @Test
+    void createExchangeTransaction_WithExpiredQuote_ThrowsException() {
+        when(userService.getUserById(1L)).thenReturn(testUser);
+        when(fxQuoteService.redeemQuote("quote-123", 1L, Account.Currency.USD, Account.Currency.TRY))
+                .thenThrow(new IllegalArgumentException("Unknown or expired FX quote: quote-123"));
+
+        assertThatThrownBy(() -> transactionService.createExchangeTransaction(exchangeRequest, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown or expired FX quote: quote-123");
+
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(outboxService, never()).enqueue(any(Transaction.class));
     }
 
     @Test
-    void getTransactionsByUserId_ReturnsUserTransactions() {
-        List<Transaction> transactions = Collections.singletonList(testTransaction);
-        when(transactionRepository.findByUserId(1L)).thenReturn(transactions);
+    void getTransactionHistory_MoreRowsThanLimit_ReturnsPageAndCursorToNextOne() {
+        TransactionResponse newer = TransactionResponse.builder()
+                .id(2L)
+                .createdAt(LocalDateTime.of(2024, 1, 2, 10, 0))
+                .build();
+        TransactionResponse older = TransactionResponse.builder()
+                .id(1L)
+                .createdAt(LocalDateTime.of(2024, 1, 1, 10, 0))
+                .build();
+        when(transactionRepository.findHistoryPage(eq(1L), any(), any(), any(), any(),
+                eq(LocalDateTime.of(9999, 12, 31, 0, 0)), eq(Long.MAX_VALUE), eq(PageRequest.ofSize(2))))
+                .thenReturn(List.of(newer, older));
 
-        List<TransactionResponse> result = transactionService.getTransactionsByUserId(1L);
+        TransactionHistoryPage page = transactionService.getTransactionHistory(1L, new TransactionHistoryFilter(),
+                null, 1);
 
-        assertThat(result).hasSize(1);
-        assertThat(result.getFirst().getId()).isEqualTo(1L);
+        assertThat(page.getTransactions()).extracting(TransactionResponse::getId).containsExactly(2L);
+        assertThat(page.getNextCursor()).isNotNull();
 
-        verify(transactionRepository).findByUserId(1L);
+        when(transactionRepository.findHistoryPage(eq(1L), any(), any(), any(), any(),
+                eq(LocalDateTime.of(2024, 1, 2, 10, 0)), eq(2L), eq(PageRequest.ofSize(2))))
+                .thenReturn(List.of(older));
+
+        TransactionHistoryPage nextPage = transactionService.getTransactionHistory(1L, new TransactionHistoryFilter(),
+                page.getNextCursor(), 1);
+
+        assertThat(nextPage.getTransactions()).extracting(TransactionResponse::getId).containsExactly(1L);
+        assertThat(nextPage.getNextCursor()).isNull();
     }
 
     @Test
-    void getLastTransactionByUserId_ReturnsLastTransaction() {
-        when(transactionRepository.findTopByUserIdOrderByCreatedAtDesc(1L))
-                .thenReturn(Optional.of(testTransaction));
+    void getTransactionHistory_WithFilter_QueriesOnlyMatchingTypeAndStatus() {
+        TransactionHistoryFilter filter = TransactionHistoryFilter.builder()
+                .type(Transaction.TransactionType.DEPOSIT)
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .from(LocalDateTime.of(2024, 1, 1, 0, 0))
+                .build();
+        when(transactionRepository.findHistoryPage(1L, Set.of(Transaction.TransactionType.DEPOSIT),
+                Set.of(Transaction.TransactionStatus.COMPLETED), LocalDateTime.of(2024, 1, 1, 0, 0),
+                LocalDateTime.of(9999, 12, 31, 0, 0), LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE,
+                PageRequest.ofSize(51)))
+                .thenReturn(List.of(TransactionResponse.fromEntity(testTransaction)));
 
-        Optional<TransactionResponse> result = transactionService.getLastTransactionByUserId(1L);
+        TransactionHistoryPage page = transactionService.getTransactionHistory(1L, filter, null, 50);
 
-        assertThat(result).isPresent();
-        assertThat(result.get().getId()).isEqualTo(1L);
+        assertThat(page.getTransactions()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
 
-        verify(transactionRepository).findTopByUserIdOrderByCreatedAtDesc(1L);
+    @Test
+    void getTransactionHistory_LimitAboveMaximum_ThrowsException() {
+        assertThatThrownBy(() -> transactionService.getTransactionHistory(1L, new TransactionHistoryFilter(),
+                null, 201))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Limit must be between 1 and 200");
     }
 
     @Test
-    void getLastTransactionByUserId_WhenNoTransactions_ReturnsEmpty() {
-        when(transactionRepository.findTopByUserIdOrderByCreatedAtDesc(1L))
-                .thenReturn(Optional.empty());
+    void getTransactionHistory_MalformedCursor_ThrowsException() {
+        assertThatThrownBy(() -> transactionService.getTransactionHistory(1L, new TransactionHistoryFilter(),
+                "not-a-cursor", 50))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor: not-a-cursor");
+    }
 
-        Optional<TransactionResponse> result = transactionService.getLastTransactionByUserId(1L);
+    @Test
+    void exportTransactionHistory_HandsEachRowToSink() {
+        when(transactionRepository.streamHistory(eq(1L), any(), any(), any(), any()))
+                .thenReturn(Stream.of(TransactionResponse.builder().id(2L).build(),
+                        TransactionResponse.builder().id(1L).build()));
+        List<TransactionResponse> exported = new ArrayList<>();
 
-        assertThat(result).isEmpty();
+        transactionService.exportTransactionHistory(1L, new TransactionHistoryFilter(), exported::add);
+
+        assertThat(exported).extracting(TransactionResponse::getId).containsExactly(2L, 1L);
+    }
 
-        verify(transactionRepository).findTopByUserIdOrderByCreatedAtDesc(1L);
+    @Test
+    void getTransactionStatus_ReturnsLatestTransactionStatus() {
+        TransactionRepository.TransactionStatusView latest = mock(TransactionRepository.TransactionStatusView.class);
+        when(latest.getStatus()).thenReturn(Transaction.TransactionStatus.FAILED);
+        when(latest.getType()).thenReturn(Transaction.TransactionType.WITHDRAWAL);
+        when(latest.getErrorMessage()).thenReturn("Insufficient balance");
+        when(latest.getProcessedAt()).thenReturn(LocalDateTime.of(2024, 1, 1, 10, 0, 5));
+        when(transactionRepository.findLatestStatusByUserId(1L, PageRequest.ofSize(1))).thenReturn(List.of(latest));
+
+        Optional<TransactionStatusResponse> result = transactionService.getTransactionStatus(1L);
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getUserId()).isEqualTo(1L);
+        assertThat(result.get().getLastTransactionStatus()).isEqualTo(Transaction.TransactionStatus.FAILED);
+        assertThat(result.get().getLastTransactionType()).isEqualTo("WITHDRAWAL");
+        assertThat(result.get().getErrorMessage()).isEqualTo("Insufficient balance");
+        assertThat(result.get().getLastUpdated()).isEqualTo(LocalDateTime.of(2024, 1, 1, 10, 0, 5));
+    }
+
+    @Test
+    void getTransactionStatus_WhenNoTransactions_ReturnsEmpty() {
+        when(transactionRepository.findLatestStatusByUserId(1L, PageRequest.ofSize(1))).thenReturn(List.of());
+
+        Optional<TransactionStatusResponse> result = transactionService.getTransactionStatus(1L);
+
+        assertThat(result).isEmpty();
     }
 
     @Test
@@ -240,6 +358,13 @@ class TransactionServiceTest {
 
         verify(transactionRepository).findById(1L);
         verify(transactionRepository).save(any(Transaction.class));
+        verify(transactionStatusPublisher).publishAfterCommit(List.of(TransactionStatusEvent.builder()
+                .transactionId(1L)
+                .userId(1L)
+                .type(testTransaction.getType())
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .processedAt(testTransaction.getProcessedAt())
+                .build()));
     }
 
     @Test
@@ -258,6 +383,19 @@ class TransactionServiceTest {
         verify(transactionRepository).save(any(Transaction.class));
     }
 
+    @Test
+    void recordExchangeSettlement_StoresTargetRateAndAmount() {
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(testTransaction));
+
+        transactionService.recordExchangeSettlement(1L, Account.Currency.TRY, new BigDecimal("33.25"),
+                new BigDecimal("3325.000000"));
+
+        assertThat(testTransaction.getToCurrency()).isEqualTo(Account.Currency.TRY);
+        assertThat(testTransaction.getQuotedRate()).isEqualByComparingTo("33.25");
+        assertThat(testTransaction.getToAmount()).isEqualByComparingTo("3325.000000");
+        verify(transactionRepository).save(testTransaction);
+    }
+
     @Test
     void updateTransactionStatus_WhenTransactionNotFound_ThrowsException() {
         when(transactionRepository.findById(99L)).thenReturn(Optional.empty());
@@ -269,6 +407,7 @@ class TransactionServiceTest {
 
         verify(transactionRepository).findById(99L);
         verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(transactionStatusPublisher, never()).publishAfterCommit(any());
     }
 
     @Test
@@ -281,6 +420,163 @@ class TransactionServiceTest {
 
         verify(userService).getUserById(1L);
         verify(transactionRepository, never()).save(any(Transaction.class));
-        verify(kafkaProducerService, never()).sendTransactionMessage(any(Transaction.class));
+        verify(outboxService, never()).enqueue(any(Transaction.class));
+    }
+
+    @Test
+    void claimForProcessing_OnlyMovesPendingTransactions() {
+        when(transactionRepository.updateStatusByIdsIfStatus(eq(List.of(1L, 2L)),
+                eq(Transaction.TransactionStatus.PENDING), eq(Transaction.TransactionStatus.PROCESSING), any()))
+                .thenReturn(1);
+
+        int claimed = transactionService.claimForProcessing(List.of(1L, 2L));
+
+        assertThat(claimed).isEqualTo(1);
+    }
+
+    @Test
+    void completeTransactions_UpdatesAllInOneStatement() {
+        when(transactionRepository.updateStatusByIds(any(), any(), any())).thenReturn(2);
+
+        transactionService.completeTransactions(1L, Transaction.TransactionType.DEPOSIT, List.of(1L, 2L));
+
+        verify(transactionRepository).updateStatusByIds(eq(List.of(1L, 2L)),
+                eq(Transaction.TransactionStatus.COMPLETED), any());
+        verify(transactionStatusPublisher).publishAfterCommit(argThat(events -> events.stream()
+                .map(event -> event.getTransactionId() + ":" + event.getUserId() + ":" + event.getStatus())
+                .toList()
+                .equals(List.of("1:1:COMPLETED", "2:1:COMPLETED"))));
+    }
+
+    @Test
+    void completeTransactions_WhenSomeTransactionsMissing_ThrowsException() {
+        when(transactionRepository.updateStatusByIds(any(), any(), any())).thenReturn(1);
+
+        assertThatThrownBy(() -> transactionService.completeTransactions(1L,
+                Transaction.TransactionType.DEPOSIT, List.of(1L, 2L)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Transactions not found");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createTransactionBatch_ReportsOutcomePerItemAndWritesAcceptedOnesOnce() {
+        List<BatchTransactionItem> items = List.of(
+                batchItem(Transaction.TransactionType.DEPOSIT, 1L, "new-key"),
+                batchItem(Transaction.TransactionType.WITHDRAWAL, 1L, "test-key-123"),
+                batchItem(Transaction.TransactionType.DEPOSIT, 99L, null),
+                batchItem(Transaction.TransactionType.EXCHANGE, 1L, null));
+        when(transactionRepository.findByIdempotencyKeyIn(Set.of("new-key", "test-key-123")))
+                .thenReturn(List.of(testTransaction));
+        when(userService.findExistingUserIds(Set.of(1L, 99L))).thenReturn(Set.of(1L));
+        doAnswer(invocation -> {
+            List<Transaction> inserted = invocation.getArgument(0);
+            inserted.forEach(transaction -> transaction.setId(10L));
+            return null;
+        }).when(transactionRepository).insertAll(any());
+
+        BatchTransactionResponse result = transactionService.createTransactionBatch(items);
+
+        assertThat(result.getResults()).extracting(BatchTransactionResponse.ItemResult::getOutcome).containsExactly(
+                BatchTransactionResponse.Outcome.CREATED,
+                BatchTransactionResponse.Outcome.EXISTING,
+                BatchTransactionResponse.Outcome.REJECTED,
+                BatchTransactionResponse.Outcome.REJECTED);
+        assertThat(result.getResults().get(0).getTransaction().getId()).isEqualTo(10L);
+        assertThat(result.getResults().get(1).getTransaction().getId()).isEqualTo(1L);
+        assertThat(result.getResults().get(2).getError()).isEqualTo("User not found with id: 99");
+        assertThat(result.getResults().get(3).getError()).contains("quote ID are required");
+
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).insertAll(captor.capture());
+        assertThat(captor.getValue()).singleElement().satisfies(transaction -> {
+            assertThat(transaction.getIdempotencyKey()).isEqualTo("new-key");
+            assertThat(transaction.getStatus()).isEqualTo(Transaction.TransactionStatus.PENDING);
+            assertThat(transaction.getUser().getId()).isEqualTo(1L);
+        });
+        verify(outboxService).enqueueAll(captor.getValue());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void createTransactionBatch_RejectsRepeatedIdempotencyKey() {
+        List<BatchTransactionItem> items = List.of(
+                batchItem(Transaction.TransactionType.DEPOSIT, 1L, "same-key"),
+                batchItem(Transaction.TransactionType.DEPOSIT, 1L, "same-key"));
+        when(transactionRepository.findByIdempotencyKeyIn(Set.of("same-key"))).thenReturn(List.of());
+        when(userService.findExistingUserIds(Set.of(1L))).thenReturn(Set.of(1L));
+
+        BatchTransactionResponse result = transactionService.createTransactionBatch(items);
+
+        assertThat(result.getResults()).extracting(BatchTransactionResponse.ItemResult::getOutcome).containsExactly(
+                BatchTransactionResponse.Outcome.CREATED,
+                BatchTransactionResponse.Outcome.REJECTED);
+        assertThat(result.getResults().get(1).getError()).contains("earlier item");
+    }
+
+    @Test
+    void createTransactionBatch_RedeemsQuoteOfExchangeItem() {
+        BatchTransactionItem exchange = batchItem(Transaction.TransactionType.EXCHANGE, 1L, null);
+        exchange.setToCurrency(Account.Currency.TRY);
+        exchange.setQuoteId("quote-123");
+        when(userService.findExistingUserIds(Set.of(1L))).thenReturn(Set.of(1L));
+        when(fxQuoteService.redeemQuote("quote-123", 1L, Account.Currency.USD, Account.Currency.TRY))
+                .thenReturn(new BigDecimal("33.25"));
+
+        BatchTransactionResponse result = transactionService.createTransactionBatch(List.of(exchange));
+
+        TransactionResponse transaction = result.getResults().get(0).getTransaction();
+        assertThat(transaction.getToAmount()).isEqualByComparingTo("3325.00");
+        verify(transactionRepository, never()).findByIdempotencyKeyIn(any());
+    }
+
+    @Test
+    void createTransactionBatch_QuoteStoreFails_RejectsOnlyTheExchanges() {
+        BatchTransactionItem firstExchange = batchItem(Transaction.TransactionType.EXCHANGE, 1L, null);
+        firstExchange.setToCurrency(Account.Currency.TRY);
+        firstExchange.setQuoteId("quote-1");
+        BatchTransactionItem secondExchange = batchItem(Transaction.TransactionType.EXCHANGE, 1L, null);
+        secondExchange.setToCurrency(Account.Currency.TRY);
+        secondExchange.setQuoteId("quote-2");
+        List<BatchTransactionItem> items = List.of(firstExchange,
+                batchItem(Transaction.TransactionType.DEPOSIT, 1L, null), secondExchange);
+        when(userService.findExistingUserIds(Set.of(1L))).thenReturn(Set.of(1L));
+        when(fxQuoteService.redeemQuote("quote-1", 1L, Account.Currency.USD, Account.Currency.TRY))
+                .thenThrow(new RedisConnectionFailureException("Unable to connect to Redis"));
+
+        BatchTransactionResponse result = transactionService.createTransactionBatch(items);
+
+        assertThat(result.getResults()).extracting(BatchTransactionResponse.ItemResult::getOutcome).containsExactly(
+                BatchTransactionResponse.Outcome.REJECTED,
+                BatchTransactionResponse.Outcome.CREATED,
+                BatchTransactionResponse.Outcome.REJECTED);
+        assertThat(result.getResults().get(0).getError()).contains("temporarily unavailable");
+        assertThat(result.getResults().get(2).getError()).contains("temporarily unavailable");
+        verify(fxQuoteService, never()).redeemQuote(eq("quote-2"), any(), any(), any());
+        verify(transactionRepository).insertAll(argThat(transactions -> transactions.size() == 1));
+    }
+
+    @Test
+    void createTransactionBatch_WhenTooManyItems_ThrowsException() {
+        ReflectionTestUtils.setField(transactionService, "maxBatchItems", 1);
+        List<BatchTransactionItem> items = List.of(
+                batchItem(Transaction.TransactionType.DEPOSIT, 1L, null),
+                batchItem(Transaction.TransactionType.DEPOSIT, 1L, null));
+
+        assertThatThrownBy(() -> transactionService.createTransactionBatch(items))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("at most 1 items");
+        verify(transactionRepository, never()).insertAll(any());
+    }
+
+    private static BatchTransactionItem batchItem(Transaction.TransactionType type, Long userId,
+                                                  String idempotencyKey) {
+        return BatchTransactionItem.builder()
+                .type(type)
+                .userId(userId)
+                .currency(Account.Currency.USD)
+                .amount(new BigDecimal("100.00"))
+                .idempotencyKey(idempotencyKey)
+                .build();
     }
-} 
\ No newline at end of file
+}
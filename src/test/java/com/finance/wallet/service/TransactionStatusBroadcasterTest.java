@@ -0,0 +1,100 @@
+package com.finance.wallet.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.finance.wallet.dto.TransactionStatusEvent;
+import com.finance.wallet.entity.Transaction;
+import com.finance.wallet.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionStatusBroadcasterTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private TransactionStatusBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new TransactionStatusBroadcaster(transactionRepository, objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(broadcaster, "timeout", Duration.ofMinutes(5));
+    }
+
+    @Test
+    void subscribe_TransactionAlreadyFinal_CompletesRightAway() {
+        when(transactionRepository.findStatusEventsByUserIdAndIds(1L, Set.of(10L)))
+                .thenReturn(List.of(event(10L, Transaction.TransactionStatus.COMPLETED)));
+
+        broadcaster.subscribe(1L, Set.of(10L));
+
+        assertThat(broadcaster.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    void onMessage_CompletesSubscriptionOnceAllTransactionsAreFinal() throws Exception {
+        when(transactionRepository.findStatusEventsByUserIdAndIds(1L, Set.of(10L, 11L)))
+                .thenReturn(List.of(event(10L, Transaction.TransactionStatus.PENDING),
+                        event(11L, Transaction.TransactionStatus.PENDING)));
+        broadcaster.subscribe(1L, Set.of(10L, 11L));
+
+        broadcaster.onMessage(message(event(10L, Transaction.TransactionStatus.COMPLETED)), null);
+        broadcaster.onMessage(message(event(12L, Transaction.TransactionStatus.FAILED)), null);
+
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+
+        broadcaster.onMessage(message(event(11L, Transaction.TransactionStatus.FAILED)), null);
+
+        assertThat(broadcaster.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    void onMessage_UserWideSubscription_StaysOpenAfterFinalStatus() throws Exception {
+        broadcaster.subscribe(1L, Set.of());
+
+        broadcaster.onMessage(message(event(10L, Transaction.TransactionStatus.COMPLETED)), null);
+
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void onMessage_MalformedEvent_IsIgnored() {
+        broadcaster.subscribe(1L, Set.of());
+
+        broadcaster.onMessage(new DefaultMessage(TransactionStatusPublisher.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "not json".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+    }
+
+    private DefaultMessage message(TransactionStatusEvent event) throws Exception {
+        return new DefaultMessage(TransactionStatusPublisher.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                objectMapper.writeValueAsBytes(event));
+    }
+
+    private static TransactionStatusEvent event(Long transactionId, Transaction.TransactionStatus status) {
+        return TransactionStatusEvent.builder()
+                .transactionId(transactionId)
+                .userId(1L)
+                .type(Transaction.TransactionType.DEPOSIT)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,159 @@
+package com.finance.wallet.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.finance.wallet.dto.TransactionStatusEvent;
+import com.finance.wallet.entity.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionStatusPublisherTest {
+
+    private static final byte[] CHANNEL = TransactionStatusPublisher.CHANNEL.getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private RedisConnection connection;
+
+    private TransactionStatusPublisher transactionStatusPublisher;
+
+    @BeforeEach
+    void setUp() {
+        transactionStatusPublisher = new TransactionStatusPublisher(redisTemplate,
+                new ObjectMapper().registerModule(new JavaTimeModule()), Runnable::run);
+    }
+
+    @Test
+    void publishAfterCommit_InTransaction_PublishesLastFinalStatusOncePerTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            transactionStatusPublisher.publishAfterCommit(List.of(event(1L, Transaction.TransactionStatus.PROCESSING)));
+            transactionStatusPublisher.publishAfterCommit(List.of(event(1L, Transaction.TransactionStatus.COMPLETED)));
+            transactionStatusPublisher.publishAfterCommit(List.of(event(2L, Transaction.TransactionStatus.FAILED),
+                    event(3L, Transaction.TransactionStatus.PROCESSING)));
+
+            verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertThat(synchronizations).hasSize(1);
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+            synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(publishedMessages()).containsExactly(
+                "{\"transactionId\":1,\"userId\":1,\"type\":\"DEPOSIT\",\"status\":\"COMPLETED\",\"errorMessage\":null,"
+                        + "\"processedAt\":null}",
+                "{\"transactionId\":2,\"userId\":1,\"type\":\"DEPOSIT\",\"status\":\"FAILED\",\"errorMessage\":null,"
+                        + "\"processedAt\":null}");
+        assertThat(TransactionSynchronizationManager.getResource(transactionStatusPublisher)).isNull();
+    }
+
+    @Test
+    void publishAfterCommit_RolledBack_PublishesNothing() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            transactionStatusPublisher.publishAfterCommit(List.of(event(1L, Transaction.TransactionStatus.COMPLETED)));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+        assertThat(TransactionSynchronizationManager.getResource(transactionStatusPublisher)).isNull();
+    }
+
+    @Test
+    void discardPending_DropsEventOfRolledBackSavepoint() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            transactionStatusPublisher.publishAfterCommit(List.of(event(1L, Transaction.TransactionStatus.COMPLETED),
+                    event(2L, Transaction.TransactionStatus.COMPLETED)));
+            transactionStatusPublisher.discardPending(1L);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(publishedMessages()).singleElement().asString().contains("\"transactionId\":2");
+    }
+
+    @Test
+    void publishAfterCommit_OnlyIntermediateStatuses_PublishesNothing() {
+        transactionStatusPublisher.publishAfterCommit(List.of(event(1L, Transaction.TransactionStatus.PROCESSING)));
+
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void publishAfterCommit_RedisDown_DoesNotThrow() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("Redis down"));
+
+        assertThatCode(() -> transactionStatusPublisher.publishAfterCommit(
+                List.of(event(1L, Transaction.TransactionStatus.COMPLETED)))).doesNotThrowAnyException();
+    }
+
+    @Test
+    void publishAfterCommit_QueueFull_DropsEventsWithoutThrowing() {
+        TransactionStatusPublisher saturated = new TransactionStatusPublisher(redisTemplate, new ObjectMapper(),
+                task -> {
+                    throw new RejectedExecutionException("Queue full");
+                });
+
+        assertThatCode(() -> saturated.publishAfterCommit(List.of(event(1L, Transaction.TransactionStatus.FAILED))))
+                .doesNotThrowAnyException();
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> publishedMessages() {
+        ArgumentCaptor<RedisCallback<Object>> callback = ArgumentCaptor.forClass(RedisCallback.class);
+        verify(redisTemplate, times(1)).executePipelined(callback.capture());
+        callback.getValue().doInRedis(connection);
+
+        ArgumentCaptor<byte[]> messages = ArgumentCaptor.forClass(byte[].class);
+        verify(connection, atLeastOnce()).publish(aryEq(CHANNEL), messages.capture());
+        return messages.getAllValues().stream().map(message -> new String(message, StandardCharsets.UTF_8)).toList();
+    }
+
+    private static TransactionStatusEvent event(Long transactionId, Transaction.TransactionStatus status) {
+        return TransactionStatusEvent.builder()
+                .transactionId(transactionId)
+                .userId(1L)
+                .type(Transaction.TransactionType.DEPOSIT)
+                .status(status)
+                .build();
+    }
+}
@@ -1,23 +1,28 @@
 package com.finance.wallet.service;
 
+import com.finance.wallet.dto.UserSummary;
 import com.finance.wallet.entity.User;
 import com.finance.wallet.repository.UserRepository;
+import com.finance.wallet.security.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -30,13 +35,27 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
-    @InjectMocks
+    @Mock
+    private NearCacheInvalidator nearCacheInvalidator;
+
+    private NearCache<Long, UserSummary> userByIdNearCache;
+
+    private NearCache<String, UserSummary> userByEmailNearCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
     private UserService userService;
 
     private User testUser;
 
     @BeforeEach
     void setUp() {
+        userByIdNearCache = new NearCache<>("users-by-id", 100, Duration.ofMinutes(1), Long::valueOf);
+        userByEmailNearCache = new NearCache<>("users-by-email", 100, Duration.ofMinutes(1), Function.identity());
+        meterRegistry = new SimpleMeterRegistry();
+        userService = new UserService(userRepository, passwordEncoder, userByIdNearCache, userByEmailNearCache,
+                nearCacheInvalidator, meterRegistry);
+
         testUser = User.builder()
                 .id(1L)
                 .name("John Doe")
@@ -51,7 +70,7 @@ class UserServiceTest {
     void findById_WhenUserExists_ReturnsUser() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
 
-        Optional<User> result = userService.findById(1L);
+        Optional<UserSummary> result = userService.findById(1L);
 
         assertThat(result).isPresent();
         assertThat(result.get().getId()).isEqualTo(1L);
@@ -61,11 +80,22 @@ class UserServiceTest {
         verify(userRepository).findById(1L);
     }
 
+    @Test
+    void findById_RepeatedLookup_ServedFromNearCache() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        Optional<UserSummary> first = userService.findById(1L);
+        Optional<UserSummary> result = userService.findById(1L);
+
+        assertThat(result).containsSame(first.orElseThrow());
+        verify(userRepository, times(1)).findById(1L);
+    }
+
     @Test
     void findById_WhenUserDoesNotExist_ReturnsEmpty() {
         when(userRepository.findById(99L)).thenReturn(Optional.empty());
 
-        Optional<User> result = userService.findById(99L);
+        Optional<UserSummary> result = userService.findById(99L);
 
         assertThat(result).isEmpty();
         verify(userRepository).findById(99L);
@@ -75,22 +105,36 @@ class UserServiceTest {
     void findByEmail_WhenUserExists_ReturnsUser() {
         when(userRepository.findByEmail("john.doe@example.com")).thenReturn(Optional.of(testUser));
 
-        Optional<User> result = userService.findByEmail("john.doe@example.com");
+        Optional<UserSummary> result = userService.findByEmail("john.doe@example.com");
 
         assertThat(result).isPresent();
         assertThat(result.get().getEmail()).isEqualTo("john.doe@example.com");
+        assertThat(result.get().getPlan()).isEqualTo(User.Plan.STANDARD);
         
         verify(userRepository).findByEmail("john.doe@example.com");
     }
 
     @Test
-    void findByEmail_WhenUserDoesNotExist_ReturnsEmpty() {
+    void findCredentialsByEmail_IsNotCached() {
+        when(userRepository.findByEmail("john.doe@example.com")).thenReturn(Optional.of(testUser));
+
+        userService.findCredentialsByEmail("john.doe@example.com");
+        Optional<User> result = userService.findCredentialsByEmail("john.doe@example.com");
+
+        assertThat(result).contains(testUser);
+        assertThat(userByEmailNearCache.getCache().estimatedSize()).isZero();
+        verify(userRepository, times(2)).findByEmail("john.doe@example.com");
+    }
+
+    @Test
+    void findByEmail_WhenUserDoesNotExist_ReturnsEmptyAndDoesNotCacheMiss() {
         when(userRepository.findByEmail("nonexistent@example.com")).thenReturn(Optional.empty());
 
-        Optional<User> result = userService.findByEmail("nonexistent@example.com");
+        Optional<UserSummary> result = userService.findByEmail("nonexistent@example.com");
+        userService.findByEmail("nonexistent@example.com");
 
         assertThat(result).isEmpty();
-        verify(userRepository).findByEmail("nonexistent@example.com");
+        verify(userRepository, times(2)).findByEmail("nonexistent@example.com");
     }
 
     @Test
@@ -107,6 +151,10 @@ class UserServiceTest {
         verify(userRepository).existsByEmail("new.user@example.com");
         verify(passwordEncoder).encode("password123");
         verify(userRepository).save(any(User.class));
+        verify(nearCacheInvalidator).invalidateAfterCommit(userByIdNearCache, 1L);
+        verify(nearCacheInvalidator).invalidateAfterCommit(userByEmailNearCache, "john.doe@example.com");
+        assertThat(meterRegistry.get("wallet.auth.registration").tag("outcome", "success").timer().count())
+                .isEqualTo(1);
     }
 
     @Test
@@ -119,6 +167,20 @@ class UserServiceTest {
 
         verify(userRepository).existsByEmail("existing@example.com");
         verify(userRepository, never()).save(any(User.class));
+        verify(passwordEncoder, never()).encode(anyString());
+    }
+
+    @Test
+    void createUser_WhenHashingIsBusy_RecordsRejectionAndSavesNothing() {
+        when(userRepository.existsByEmail("new.user@example.com")).thenReturn(false);
+        when(passwordEncoder.encode("password123")).thenThrow(new PasswordHashingBusyException("Busy"));
+
+        assertThatThrownBy(() -> userService.createUser("John Doe", "new.user@example.com", "password123"))
+                .isInstanceOf(PasswordHashingBusyException.class);
+
+        verify(userRepository, never()).save(any(User.class));
+        assertThat(meterRegistry.get("wallet.auth.registration").tag("outcome", "rejected").timer().count())
+                .isEqualTo(1);
     }
 
     @Test
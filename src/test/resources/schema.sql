@@ -3,6 +3,7 @@ CREATE TABLE IF NOT EXISTS users (
     name VARCHAR(100) NOT NULL,
     email VARCHAR(100) UNIQUE NOT NULL,
     password VARCHAR(255) NOT NULL,
+    plan VARCHAR(20) NOT NULL DEFAULT 'STANDARD',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
@@ -12,6 +13,7 @@ CREATE TABLE IF NOT EXISTS accounts (
     user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
     currency VARCHAR(3) NOT NULL,
     balance DECIMAL(18,6) NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     UNIQUE(user_id, currency)
@@ -23,6 +25,9 @@ CREATE TABLE IF NOT EXISTS transactions (
     type VARCHAR(20) NOT NULL,
     currency VARCHAR(3) NOT NULL,
     amount DECIMAL(18,6) NOT NULL,
+    to_currency VARCHAR(3),
+    quoted_rate NUMERIC(30,16),
+    to_amount DECIMAL(18,6),
     status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
     idempotency_key VARCHAR(100) UNIQUE,
     external_reference VARCHAR(100),
@@ -31,4 +36,18 @@ CREATE TABLE IF NOT EXISTS transactions (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     processed_at TIMESTAMP
-); 
\ No newline at end of file
+); 
+
+CREATE INDEX IF NOT EXISTS idx_transactions_exchange_pair ON transactions (currency, to_currency, created_at);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_user_history ON transactions (user_id, created_at DESC, id DESC);
+
+CREATE TABLE IF NOT EXISTS transaction_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id BIGINT NOT NULL REFERENCES transactions(id) ON DELETE CASCADE,
+    message_key VARCHAR(100) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_outbox_key_id ON transaction_outbox (message_key, id);